@@ -0,0 +1,62 @@
+package net.corda.training.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import net.corda.training.api.VaultEventStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the [VaultEventStream] as Server-Sent Events. The response is left open when the handler returns; the stream
+ * writes each event to it from its own thread, so an open dashboard holds no request thread.
+ */
+class EventStreamHandler implements HttpHandler {
+    private final VaultEventStream eventStream;
+
+    EventStreamHandler(VaultEventStream eventStream) {
+        this.eventStream = eventStream;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        eventStream.subscribe(new ExchangeClient(exchange));
+    }
+
+    private static class ExchangeClient implements VaultEventStream.Client {
+        private final HttpExchange exchange;
+        private final OutputStream body;
+        private volatile boolean closed = false;
+
+        ExchangeClient(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.body = exchange.getResponseBody();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void write(String text) throws IOException {
+            body.write(text.getBytes(StandardCharsets.UTF_8));
+            body.flush();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            exchange.close();
+        }
+    }
+}
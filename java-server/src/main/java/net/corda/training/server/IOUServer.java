@@ -0,0 +1,125 @@
+package net.corda.training.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
+import com.sun.net.httpserver.HttpServer;
+import net.corda.client.jackson.JacksonSupport;
+import net.corda.client.rpc.CordaRPCClient;
+import net.corda.client.rpc.CordaRPCConnection;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.utilities.NetworkHostAndPort;
+import net.corda.training.api.CompactViewModule;
+import net.corda.training.api.IOUApi;
+import net.corda.training.api.ResponseCompression;
+import net.corda.training.api.RpcConnectionPool;
+import net.corda.training.api.WebAssetsApi;
+import org.glassfish.jersey.jdkhttp.JdkHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the IOU API and dashboard without corda-webserver: a JDK [HttpServer] hosts [IOUApi] through Jersey, and
+ * talks to the node over [CordaRPCClient]. There is no plugin scanning or servlet container to bootstrap, so the server
+ * is up as soon as the RPC connections are open.
+ *
+ * Each request runs on its own virtual thread when the JVM provides them (Java 21 and later), so requests blocked on
+ * RPC calls cost no platform threads; on older JVMs a cached thread pool stands in. How far requests may actually
+ * proceed in parallel is still bounded by the [RpcConnectionPool] lanes.
+ *
+ * Settings are read from system properties:
+ * - "iou.rpc.address", "iou.rpc.username", "iou.rpc.password": the node's RPC endpoint and user. Required. The same
+ *   properties give the [RpcConnectionPool] its own connections.
+ * - "iou.server.port": the HTTP port, 10050 by default.
+ *
+ * The API is served under /api/iou as it is by the webserver, and the dashboard under /web/iou.
+ */
+public class IOUServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(IOUServer.class);
+    private static final int DEFAULT_PORT = 10050;
+
+    private final CordaRPCConnection connection;
+    private final IOUApi api;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public static void main(String[] args) {
+        NetworkHostAndPort address = NetworkHostAndPort.parse(requireProperty("iou.rpc.address"));
+        String username = requireProperty("iou.rpc.username");
+        String password = requireProperty("iou.rpc.password");
+        int port = Integer.getInteger("iou.server.port", DEFAULT_PORT);
+
+        IOUServer server = new IOUServer(address, username, password, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "iou-server-shutdown"));
+        logger.info("IOU server listening on http://localhost:{}/web/iou, started in {} ms.",
+                port, ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    public IOUServer(NetworkHostAndPort address, String username, String password, int port) {
+        this.connection = new CordaRPCClient(address).start(username, password);
+        CordaRPCOps rpcOps = connection.getProxy();
+
+        ObjectMapper mapper = JacksonSupport.createDefaultMapper(rpcOps);
+        mapper.registerModule(new CompactViewModule());
+        this.api = new IOUApi(rpcOps);
+        ResourceConfig config = new ResourceConfig()
+                .register(new JacksonJsonProvider(mapper))
+                .register(api)
+                .register(new WebAssetsApi())
+                .register(new ResponseCompression())
+                .register(new RpcConnectionPool.SaturationMapper());
+
+        this.executor = requestExecutor();
+        this.server = JdkHttpServerFactory.createHttpServer(URI.create("http://0.0.0.0:" + port + "/api/"), config, false);
+        // The JDK container can't hold a Jersey response open, so the event stream is written to the exchange directly.
+        server.createContext("/api/iou/events", new EventStreamHandler(api.getEventStream()));
+        server.createContext("/web/iou", new StaticResourceHandler("/web/iou", "iouWeb"));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        // The API's pool and feeds go first, while the connection its feeds run over is still open.
+        api.close();
+        try {
+            connection.notifyServerAndClose();
+        } catch (RuntimeException e) {
+            connection.forceClose();
+        }
+    }
+
+    /**
+     * A virtual thread per request where the JVM has them. Looked up reflectively, since the CorDapp builds for Java 8.
+     */
+    static ExecutorService requestExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("Serving each request on a virtual thread.");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            logger.info("Virtual threads are not available on Java {}, serving requests from a thread pool.",
+                    System.getProperty("java.version"));
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "iou-server-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static String requireProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null) throw new IllegalArgumentException("The system property " + name + " must be set.");
+        return value;
+    }
+}
@@ -0,0 +1,76 @@
+package net.corda.training.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves a classpath directory, as the webserver does for the plugin's static serve dirs. "/" serves index.html.
+ */
+class StaticResourceHandler implements HttpHandler {
+    private static final Map<String, String> CONTENT_TYPES;
+
+    static {
+        Map<String, String> contentTypes = new HashMap<>();
+        contentTypes.put("html", "text/html; charset=utf-8");
+        contentTypes.put("js", "application/javascript; charset=utf-8");
+        contentTypes.put("css", "text/css; charset=utf-8");
+        contentTypes.put("json", "application/json");
+        contentTypes.put("png", "image/png");
+        contentTypes.put("svg", "image/svg+xml");
+        contentTypes.put("ico", "image/x-icon");
+        CONTENT_TYPES = Collections.unmodifiableMap(contentTypes);
+    }
+
+    private final String context;
+    private final String directory;
+
+    StaticResourceHandler(String context, String directory) {
+        this.context = context;
+        this.directory = directory;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(context.length());
+            if (path.isEmpty() || path.endsWith("/")) path += "index.html";
+            if (!path.startsWith("/")) path = "/" + path;
+            if (!exchange.getRequestMethod().equals("GET") || path.contains("..")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            InputStream resource = getClass().getClassLoader().getResourceAsStream(directory + path);
+            if (resource == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] bytes = readFully(resource);
+            String extension = path.substring(path.lastIndexOf('.') + 1);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"));
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        try (InputStream in = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package net.corda.training.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures requests/sec and latency percentiles of one or more running IOU APIs, so corda-webserver and [IOUServer]
+ * can be compared on the same node. Each URL is warmed up for [WARM_UP_SECONDS], then requested in a closed loop from
+ * [threads] threads for [seconds]. Responses other than 2xx and 304 are counted as errors.
+ *
+ * Start the nodes with deployNodes, start IOUServer against ParticipantA's RPC port, then run e.g.:
+ * java net.corda.training.benchmark.HttpLoadBenchmark http://localhost:10009/api/iou/ious,http://localhost:10050/api/iou/ious [threads] [seconds]
+ * or ./gradlew :java-server:httpLoadBenchmark -Piou.bench.url=... -Piou.bench.threads=... -Piou.bench.seconds=...
+ */
+public class HttpLoadBenchmark {
+    private static final int WARM_UP_SECONDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        final String urls = args.length > 0 ? args[0] : System.getProperty("iou.bench.url", "http://localhost:10050/api/iou/ious");
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("iou.bench.threads", 32);
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : Integer.getInteger("iou.bench.seconds", 20);
+
+        System.out.println(String.format("%-50s %10s %8s %8s %8s %8s %7s", "URL", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors"));
+        for (String url : urls.split(",")) {
+            run(new URL(url.trim()), threads, WARM_UP_SECONDS);
+            Result result = run(new URL(url.trim()), threads, seconds);
+            System.out.println(String.format("%-50s %10.0f %8.2f %8.2f %8.2f %8.2f %7d", url.trim(),
+                    result.latencies.length / (double) seconds,
+                    result.percentile(50), result.percentile(90), result.percentile(99), result.percentile(100),
+                    result.errors));
+        }
+    }
+
+    private static class Result {
+        final long[] latencies;
+        final long errors;
+
+        Result(long[] latencies, long errors) {
+            this.latencies = latencies;
+            this.errors = errors;
+        }
+
+        /**
+         * The latency at [percentile], in milliseconds.
+         */
+        double percentile(double percentile) {
+            if (latencies.length == 0) return Double.NaN;
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+        }
+    }
+
+    /**
+     * Requests [url] from [threads] threads for [seconds], recording the latency of every completed request.
+     */
+    private static Result run(URL url, int threads, int seconds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Worker>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                Worker worker = new Worker();
+                while (System.nanoTime() < deadline) worker.request(url);
+                return worker;
+            }));
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Future<Worker> future : workers) {
+            Worker worker = future.get();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            errors += worker.errors;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, errors);
+    }
+
+    private static class Worker {
+        long[] latencies = new long[1024];
+        int count = 0;
+        long errors = 0;
+        private final byte[] buffer = new byte[8192];
+
+        void request(URL url) {
+            long start = System.nanoTime();
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setRequestProperty("Accept-Encoding", "gzip");
+                int status = connection.getResponseCode();
+                InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+                // Reading the body to the end lets the connection be kept alive for the next request.
+                if (body != null) {
+                    try (InputStream in = body) {
+                        while (in.read(buffer) != -1) {
+                            // Discard.
+                        }
+                    }
+                }
+                if ((status < 200 || status >= 300) && status != 304) {
+                    errors++;
+                    return;
+                }
+            } catch (IOException e) {
+                errors++;
+                return;
+            }
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package net.corda.training.benchmark;
+
+import net.corda.core.contracts.*;
+import net.corda.core.transactions.LedgerTransaction;
+import net.corda.finance.contracts.asset.Cash;
+import net.corda.training.contract.IOUContract.Commands;
+import net.corda.training.state.IOUState;
+
+import java.security.PublicKey;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static net.corda.core.contracts.ContractsDSL.requireSingleCommand;
+import static net.corda.core.contracts.ContractsDSL.requireThat;
+
+/**
+ * The Issue, Transfer and Settle verification of [IOUContract] as it was before verification stopped building
+ * filtered copies, sets of keys and [requireThat] lambdas on every call, kept so [IOUContractVerifyBenchmark] can
+ * time both against the same transactions. It is not used outside the benchmarks.
+ */
+class BaselineIOUContract implements Contract {
+    @Override
+    public void verify(LedgerTransaction tx) {
+        final CommandWithParties<Commands> commandWithParties = requireSingleCommand(tx.getCommands(), Commands.class);
+        final Commands commands = commandWithParties.getValue();
+
+        if (commands.equals(new Commands.Issue())) {
+            requireThat(req -> {
+                req.using("No inputs should be consumed when issuing an IOU", tx.getInputStates().size() == 0);
+
+                List<IOUState> iouOutputStates = tx.outputsOfType(IOUState.class);
+                req.using("At least one output state should be created when issuing an IOU.", iouOutputStates.size() >= 1);
+                req.using("Only IOU output states should be created when issuing an IOU.", iouOutputStates.size() == tx.getOutputStates().size());
+
+                Set<PublicKey> participantKeysSet = new HashSet<>();
+                for (IOUState iouOutputState : iouOutputStates) {
+                    req.using("A newly issued IOU must have a positive amount.", iouOutputState.getAmount().getQuantity() > 0);
+                    req.using("The lender and borrower cannot have the same identity.", !iouOutputState.getLender().getOwningKey().equals(iouOutputState.getBorrower().getOwningKey()));
+
+                    iouOutputState.getParticipants().forEach(abstractParty ->
+                            participantKeysSet.add(abstractParty.getOwningKey())
+                    );
+                }
+
+                Set<PublicKey> publicKeysSet = new HashSet<>(commandWithParties.getSigners());
+                req.using("Both lender and borrower together only may sign IOU issue transaction.", publicKeysSet.size() == participantKeysSet.size() && publicKeysSet.containsAll(participantKeysSet));
+
+                return null;
+            });
+        } else if (commands.equals(new Commands.Transfer())) {
+            requireThat(req -> {
+                req.using("An IOU transfer transaction should only consume one input state.", tx.getInputStates().size() == 1);
+                req.using("An IOU transfer transaction should only create one output state.", tx.getOutputStates().size() == 1);
+
+                IOUState iouInputState = tx.inputsOfType(IOUState.class).get(0);
+                IOUState iouOutputState = tx.outputsOfType(IOUState.class).get(0);
+                IOUState iouOutputStateToBeChecked = iouOutputState.withNewLender(iouInputState.getLender());
+                req.using("Only the lender property may change.", iouOutputStateToBeChecked.equals(iouInputState));
+                req.using("The lender property must change in a transfer.", !iouOutputState.getLender().equals(iouInputState.getLender()));
+
+                Set<PublicKey> publicKeysSet = new HashSet<>();
+                tx.getCommands().get(0).getSigners().forEach(publicKey ->
+                        publicKeysSet.add(publicKey)
+                );
+
+                Set<PublicKey> participantKeysSet = new HashSet<>();
+                iouOutputState.getParticipants().forEach(abstractParty ->
+                        participantKeysSet.add(abstractParty.getOwningKey())
+                );
+                participantKeysSet.add(iouInputState.getLender().getOwningKey());
+
+                req.using("The borrower, old lender and new lender only must sign an IOU transfer transaction", publicKeysSet.size() == participantKeysSet.size() && publicKeysSet.containsAll(participantKeysSet));
+
+                return null;
+            });
+        } else if (commands.equals(new Commands.Settle())) {
+            requireThat(req -> {
+                List<LedgerTransaction.InOutGroup<IOUState, UniqueIdentifier>> inOutGroupList = tx.groupStates(IOUState.class, IOUState::getLinearId);
+                req.using("At least one IOU must be settled.", !inOutGroupList.isEmpty());
+
+                Map<PublicKey, Map<Currency, Long>> settledByLender = new HashMap<>();
+                Set<PublicKey> participantKeysSet = new HashSet<>();
+                for (LedgerTransaction.InOutGroup<IOUState, UniqueIdentifier> group : inOutGroupList) {
+                    req.using("There must be one input IOU.", group.getInputs().size() == 1);
+                    req.using("There must be no more than one output IOU per input IOU.", group.getOutputs().size() <= 1);
+
+                    IOUState iouInputState = group.getInputs().get(0);
+                    long outstanding = iouInputState.getAmount().getQuantity() - iouInputState.getPaid().getQuantity();
+                    long settled;
+                    if (group.getOutputs().isEmpty()) {
+                        settled = outstanding;
+                    } else {
+                        IOUState iouOutputState = group.getOutputs().get(0);
+                        settled = iouOutputState.getPaid().getQuantity() - iouInputState.getPaid().getQuantity();
+                        req.using("There must be no output IOU as it has been fully settled.", settled < outstanding);
+                        req.using("The amount settled must be positive.", settled > 0);
+                        req.using("Only the paid property may change.", iouOutputState.equals(iouInputState.pay(new Amount<>(settled, iouInputState.getAmount().getToken()))));
+                    }
+
+                    settledByLender.computeIfAbsent(iouInputState.getLender().getOwningKey(), key -> new HashMap<>())
+                            .merge((Currency) iouInputState.getAmount().getToken(), settled, Long::sum);
+                    iouInputState.getParticipants().forEach(abstractParty ->
+                            participantKeysSet.add(abstractParty.getOwningKey())
+                    );
+                }
+
+                Map<PublicKey, Map<Currency, Long>> paidToLender = new HashMap<>();
+                for (Cash.State cash : tx.outputsOfType(Cash.State.class)) {
+                    PublicKey owner = cash.getOwner().getOwningKey();
+                    if (settledByLender.containsKey(owner)) {
+                        paidToLender.computeIfAbsent(owner, key -> new HashMap<>())
+                                .merge(cash.getAmount().getToken().getProduct(), cash.getAmount().getQuantity(), Long::sum);
+                    }
+                }
+                req.using("There must be output cash paid to the lender.", !paidToLender.isEmpty());
+                req.using("The cash paid to each lender must equal the amount settled.", paidToLender.equals(settledByLender));
+                req.using("Both lender and borrower must sign IOU settle transaction.", commandWithParties.getSigners().containsAll(participantKeysSet));
+
+                return null;
+            });
+        }
+    }
+}
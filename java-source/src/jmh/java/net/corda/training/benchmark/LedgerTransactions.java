@@ -0,0 +1,115 @@
+package net.corda.training.benchmark;
+
+import net.corda.core.contracts.*;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.LedgerTransaction;
+import net.corda.core.utilities.OpaqueBytes;
+import net.corda.finance.Currencies;
+import net.corda.finance.contracts.asset.Cash;
+import net.corda.testing.core.TestIdentity;
+import net.corda.training.contract.IOUContract;
+import net.corda.training.state.IOUState;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+
+import static net.corda.training.TestUtils.ALICE;
+import static net.corda.training.TestUtils.BOB;
+import static net.corda.training.TestUtils.CHARLIE;
+
+/**
+ * Synthetic [LedgerTransaction]s for benchmarking contract verification. They are built directly rather than through
+ * [MockServices], so nothing is signed, resolved or stored and the benchmarks measure [Contract.verify] alone.
+ */
+@SuppressWarnings("deprecation")
+class LedgerTransactions {
+    private static final String CASH_CONTRACT_ID = "net.corda.finance.contracts.asset.Cash";
+    private static final Party NOTARY = new TestIdentity(new CordaX500Name("Notary", "London", "GB")).getParty();
+
+    private LedgerTransactions() {
+    }
+
+    /**
+     * [ious] IOUs issued in one transaction among [parties] parties, each lent by one party to the next. Every party
+     * with an IOU signs, which is all of them once there are at least as many IOUs as parties.
+     */
+    static LedgerTransaction issue(int ious, int parties) {
+        List<Party> members = parties(parties);
+        List<TransactionState<ContractState>> outputs = new ArrayList<>();
+        for (int i = 0; i < ious; i++) {
+            Party lender = members.get(i % parties);
+            Party borrower = members.get((i + 1) % parties);
+            outputs.add(iou(new IOUState(Currencies.POUNDS(10), lender, borrower)));
+        }
+        PublicKey[] signers = members.subList(0, Math.min(parties, ious + 1)).stream()
+                .map(Party::getOwningKey).toArray(PublicKey[]::new);
+        return transaction(Collections.emptyList(), outputs, new IOUContract.Commands.Issue(), signers);
+    }
+
+    /**
+     * One IOU transferred from Alice to Charlie.
+     */
+    static LedgerTransaction transfer() {
+        IOUState iou = new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty());
+        return transaction(Collections.singletonList(input(iou(iou))),
+                Collections.singletonList(iou(iou.withNewLender(CHARLIE.getParty()))),
+                new IOUContract.Commands.Transfer(),
+                ALICE.getPublicKey(), BOB.getPublicKey(), CHARLIE.getPublicKey());
+    }
+
+    /**
+     * [ious] IOUs from Bob to Alice settled in full, each paid with [coinsPerIou] cash states.
+     */
+    static LedgerTransaction settle(int ious, int coinsPerIou) {
+        List<StateAndRef<ContractState>> inputs = new ArrayList<>();
+        List<TransactionState<ContractState>> outputs = new ArrayList<>();
+        for (int i = 0; i < ious; i++) {
+            inputs.add(input(iou(new IOUState(Currencies.POUNDS(coinsPerIou), ALICE.getParty(), BOB.getParty()))));
+            for (int coin = 0; coin < coinsPerIou; coin++) {
+                inputs.add(input(cash(BOB.getParty(), Currencies.POUNDS(1))));
+                outputs.add(cash(ALICE.getParty(), Currencies.POUNDS(1)));
+            }
+        }
+        return transaction(inputs, outputs, new IOUContract.Commands.Settle(), ALICE.getPublicKey(), BOB.getPublicKey());
+    }
+
+    /**
+     * Alice and Bob, then as many more parties as [count] asks for.
+     */
+    private static List<Party> parties(int count) {
+        if (count < 2) throw new IllegalArgumentException("An IOU needs two parties.");
+        List<Party> parties = new ArrayList<>(Arrays.asList(ALICE.getParty(), BOB.getParty()));
+        for (int i = 2; i < count; i++) {
+            parties.add(new TestIdentity(new CordaX500Name("Party" + i, "London", "GB")).getParty());
+        }
+        return parties;
+    }
+
+    private static TransactionState<ContractState> iou(IOUState iou) {
+        return new TransactionState<>(iou, IOUContract.IOU_CONTRACT_ID, NOTARY);
+    }
+
+    private static TransactionState<ContractState> cash(Party owner, Amount<Currency> amount) {
+        PartyAndReference issuer = new PartyAndReference(BOB.getParty(), OpaqueBytes.of((byte) 1));
+        return new TransactionState<>(new Cash.State(issuer, amount, owner), CASH_CONTRACT_ID, NOTARY);
+    }
+
+    private static StateAndRef<ContractState> input(TransactionState<ContractState> state) {
+        return new StateAndRef<>(state, new StateRef(SecureHash.randomSHA256(), 0));
+    }
+
+    private static LedgerTransaction transaction(List<StateAndRef<ContractState>> inputs,
+                                                 List<TransactionState<ContractState>> outputs,
+                                                 CommandData command, PublicKey... signers) {
+        List<CommandWithParties<CommandData>> commands = Collections.singletonList(
+                new CommandWithParties<>(Arrays.asList(signers), Collections.emptyList(), command));
+        return new LedgerTransaction(inputs, outputs, commands, Collections.emptyList(), SecureHash.randomSHA256(),
+                NOTARY, null, new PrivacySalt());
+    }
+}
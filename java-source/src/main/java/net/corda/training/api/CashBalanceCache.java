@@ -0,0 +1,223 @@
+package net.corda.training.api;
+
+import net.corda.core.contracts.Amount;
+import net.corda.core.contracts.Issued;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.DataFeed;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.finance.contracts.asset.Cash;
+import net.corda.finance.schemas.CashSchemaV1;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_SIZE;
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.getField;
+
+/**
+ * Per-currency cash balances of the node, kept current from a [Cash.State] vault feed.
+ * The totals are seeded from the snapshot of a [CordaRPCOps.vaultTrackBy] feed over the per-currency sum of the cash
+ * states, and then moved by the quantity of each produced or consumed cash state, so reads never touch the vault. The
+ * node takes the snapshot and starts the feed's updates together, so the updates that arrive while the totals are
+ * being seeded are exactly those after the snapshot: they are buffered and replayed on top of it.
+ *
+ * Once the totals are live, updates are applied without a lock: each currency has its own [AtomicLong] counter, and
+ * a reader sees every counter at its latest value. A resync builds a fresh set of totals from a new feed while the
+ * current ones keep serving reads, and replaces them once seeded.
+ */
+public class CashBalanceCache implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CashBalanceCache.class);
+    private static final long RESYNC_DELAY_SECONDS = 5;
+
+    private final CordaRPCOps rpcOps;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cash-balance-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean resyncScheduled = new AtomicBoolean(false);
+    private final List<Consumer<Map<Currency, Amount<Currency>>>> listeners = new CopyOnWriteArrayList<>();
+    private final String instance = Long.toString(System.nanoTime(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Totals totals = null;
+    private volatile boolean connected = false;
+    private Subscription subscription;
+
+    public CashBalanceCache(CordaRPCOps rpcOps) {
+        this.rpcOps = rpcOps;
+    }
+
+    public void start() {
+        executor.execute(this::sync);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (subscription != null) subscription.unsubscribe();
+        }
+    }
+
+    /**
+     * Registers a listener that is handed the new balances whenever they are loaded or change.
+     */
+    public void addListener(Consumer<Map<Currency, Amount<Currency>>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * A tag that changes whenever the node's cash states change. It is null until the cache is live, since changes
+     * can't be seen before then.
+     */
+    public String getVersion() {
+        return connected ? instance + "-" + version.get() : null;
+    }
+
+    public boolean isReady() {
+        return connected;
+    }
+
+    /**
+     * The current balances, omitting currencies that have dropped to zero.
+     */
+    public Map<Currency, Amount<Currency>> getBalances() {
+        Totals current = totals;
+        if (current == null) return Collections.emptyMap();
+        Map<Currency, Amount<Currency>> result = new LinkedHashMap<>();
+        current.balances.forEach((currency, quantity) -> {
+            long value = quantity.get();
+            if (value != 0) result.put(currency, new Amount<>(value, currency));
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Schedules a reload of the totals from the vault on the cache's own thread and returns at once. The current
+     * totals keep serving reads until the reloaded ones replace them.
+     */
+    public void refresh() {
+        executor.execute(this::sync);
+    }
+
+    private void sync() {
+        resyncScheduled.set(false);
+        try {
+            Totals next = new Totals();
+            DataFeed<Vault.Page<Cash.State>, Vault.Update<Cash.State>> feed = rpcOps.vaultTrackBy(sumsByCurrency(),
+                    new PageSpecification(DEFAULT_PAGE_NUM, DEFAULT_PAGE_SIZE), new Sort(Collections.emptySet()), Cash.State.class);
+            Subscription newSubscription = feed.getUpdates().subscribe(update -> {
+                next.onUpdate(update);
+                if (totals == next) {
+                    version.incrementAndGet();
+                    notifyListeners();
+                }
+            }, this::onError);
+            next.goLive(feed.getSnapshot().getOtherResults());
+
+            Subscription previous;
+            synchronized (this) {
+                previous = subscription;
+                subscription = newSubscription;
+            }
+            if (previous != null) previous.unsubscribe();
+            totals = next;
+            connected = true;
+            version.incrementAndGet();
+            notifyListeners();
+        } catch (Exception e) {
+            onError(e);
+        }
+    }
+
+    /**
+     * The sum of the unconsumed cash states' quantities, grouped by currency, as [GetBalances] computes it.
+     */
+    private static QueryCriteria sumsByCurrency() throws NoSuchFieldException {
+        return new QueryCriteria.VaultCustomQueryCriteria(Builder.sum(
+                getField("pennies", CashSchemaV1.PersistentCashState.class),
+                Collections.singletonList(getField("currency", CashSchemaV1.PersistentCashState.class))));
+    }
+
+    private void notifyListeners() {
+        if (listeners.isEmpty()) return;
+        Map<Currency, Amount<Currency>> current = getBalances();
+        listeners.forEach(listener -> listener.accept(current));
+    }
+
+    private void onError(Throwable error) {
+        connected = false;
+        if (resyncScheduled.compareAndSet(false, true)) {
+            logger.warn("Cash balance feed lost, resyncing in {}s.", RESYNC_DELAY_SECONDS, error);
+            executor.schedule(this::sync, RESYNC_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * One generation of totals. Updates are buffered until the snapshot's sums have been loaded, then applied as they
+     * arrive.
+     */
+    private static class Totals {
+        private final Map<Currency, AtomicLong> balances = new ConcurrentHashMap<>();
+        // Guarded by this; only used until the totals are live.
+        private final List<Vault.Update<Cash.State>> pending = new ArrayList<>();
+        private volatile boolean live = false;
+
+        void onUpdate(Vault.Update<Cash.State> update) {
+            if (!live) {
+                synchronized (this) {
+                    if (!live) {
+                        pending.add(update);
+                        return;
+                    }
+                }
+            }
+            apply(update);
+        }
+
+        /**
+         * Seeds the totals from the snapshot's consecutive [sum, currency] entries and replays the buffered updates.
+         */
+        synchronized void goLive(List<Object> sums) {
+            for (int i = 0; i + 1 < sums.size(); i += 2) {
+                Currency currency = Currency.getInstance((String) sums.get(i + 1));
+                balances.computeIfAbsent(currency, key -> new AtomicLong()).set(((Number) sums.get(i)).longValue());
+            }
+            pending.forEach(this::apply);
+            pending.clear();
+            live = true;
+        }
+
+        private void apply(Vault.Update<Cash.State> update) {
+            for (StateAndRef<Cash.State> consumed : update.getConsumed()) add(consumed.getState().getData().getAmount(), -1);
+            for (StateAndRef<Cash.State> produced : update.getProduced()) add(produced.getState().getData().getAmount(), 1);
+        }
+
+        private void add(Amount<Issued<Currency>> amount, int sign) {
+            Currency currency = amount.getToken().getProduct();
+            balances.computeIfAbsent(currency, key -> new AtomicLong()).addAndGet(sign * amount.getQuantity());
+        }
+    }
+}
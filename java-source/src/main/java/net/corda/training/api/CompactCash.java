@@ -0,0 +1,24 @@
+package net.corda.training.api;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.finance.contracts.asset.Cash;
+
+/**
+ * The amount, issuer and reference of a [Cash.State], returned for "view=compact" instead of the full [StateAndRef].
+ * Written by [CompactViewModule].
+ */
+public class CompactCash {
+    private final StateAndRef<Cash.State> stateAndRef;
+
+    private CompactCash(StateAndRef<Cash.State> stateAndRef) {
+        this.stateAndRef = stateAndRef;
+    }
+
+    public static CompactCash of(StateAndRef<Cash.State> stateAndRef) {
+        return new CompactCash(stateAndRef);
+    }
+
+    public StateAndRef<Cash.State> getStateAndRef() {
+        return stateAndRef;
+    }
+}
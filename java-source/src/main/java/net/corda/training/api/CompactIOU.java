@@ -0,0 +1,24 @@
+package net.corda.training.api;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.training.state.IOUState;
+
+/**
+ * The fields of an [IOUState] the dashboard and most API clients actually use, returned for "view=compact" instead of
+ * the full [StateAndRef] with its notary, constraint and party certificates. Written by [CompactViewModule].
+ */
+public class CompactIOU {
+    private final StateAndRef<IOUState> stateAndRef;
+
+    private CompactIOU(StateAndRef<IOUState> stateAndRef) {
+        this.stateAndRef = stateAndRef;
+    }
+
+    public static CompactIOU of(StateAndRef<IOUState> stateAndRef) {
+        return new CompactIOU(stateAndRef);
+    }
+
+    public StateAndRef<IOUState> getStateAndRef() {
+        return stateAndRef;
+    }
+}
@@ -0,0 +1,68 @@
+package net.corda.training.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import net.corda.core.contracts.Amount;
+import net.corda.core.contracts.Issued;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.identity.AbstractParty;
+import net.corda.training.state.IOUState;
+
+import java.io.IOException;
+import java.util.Currency;
+
+/**
+ * Serialisers for the compact projections. Each writes its handful of fields straight to the generator, with no bean
+ * introspection and none of the nested [TransactionState] the full view carries, e.g.
+ * {"linearId":"…","amount":"10.00 GBP","paid":"0.00 GBP","lender":"O=…","borrower":"O=…","ref":"…(0)"}.
+ */
+public class CompactViewModule extends SimpleModule {
+
+    public CompactViewModule() {
+        super("CompactViewModule");
+        addSerializer(CompactIOU.class, new CompactIOUSerializer());
+        addSerializer(CompactCash.class, new CompactCashSerializer());
+    }
+
+    private static class CompactIOUSerializer extends StdSerializer<CompactIOU> {
+        CompactIOUSerializer() {
+            super(CompactIOU.class);
+        }
+
+        @Override
+        public void serialize(CompactIOU value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            IOUState iou = value.getStateAndRef().getState().getData();
+            generator.writeStartObject();
+            generator.writeStringField("linearId", iou.getLinearId().getId().toString());
+            generator.writeStringField("amount", iou.getAmount().toString());
+            generator.writeStringField("paid", iou.getPaid().toString());
+            generator.writeStringField("lender", iou.getLender().getName().toString());
+            generator.writeStringField("borrower", iou.getBorrower().getName().toString());
+            writeRef(generator, value.getStateAndRef().getRef());
+            generator.writeEndObject();
+        }
+    }
+
+    private static class CompactCashSerializer extends StdSerializer<CompactCash> {
+        CompactCashSerializer() {
+            super(CompactCash.class);
+        }
+
+        @Override
+        public void serialize(CompactCash value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            Amount<Issued<Currency>> amount = value.getStateAndRef().getState().getData().getAmount();
+            generator.writeStartObject();
+            AbstractParty issuer = amount.getToken().getIssuer().getParty();
+            generator.writeStringField("amount", new Amount<>(amount.getQuantity(), amount.getToken().getProduct()).toString());
+            generator.writeStringField("issuer", issuer.nameOrNull() == null ? issuer.toString() : issuer.nameOrNull().toString());
+            writeRef(generator, value.getStateAndRef().getRef());
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeRef(JsonGenerator generator, StateRef ref) throws IOException {
+        generator.writeStringField("ref", ref.toString());
+    }
+}
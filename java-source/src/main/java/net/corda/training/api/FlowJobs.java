@@ -0,0 +1,124 @@
+package net.corda.training.api;
+
+import net.corda.core.messaging.FlowHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Flows started on behalf of the API that the caller can poll for, keyed by the flow's run id.
+ * Starting a flow over RPC only waits for the node to accept it; the outcome is recorded when the flow's return value
+ * completes, so no HTTP thread is held while signatures are collected and the transaction is notarised. Finished jobs
+ * are kept for [RETENTION_MILLIS] and the oldest are dropped once more than [MAX_FINISHED_JOBS] have finished; the
+ * sweep runs at most once a second so submission stays cheap with many jobs in flight.
+ */
+public class FlowJobs {
+    private static final Logger logger = LoggerFactory.getLogger(FlowJobs.class);
+    private static final long RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int MAX_FINISHED_JOBS = 10_000;
+    private static final long EVICTION_INTERVAL_MILLIS = 1000;
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    /**
+     * The state of one submitted flow, as returned by the job status endpoint.
+     */
+    public static class Job {
+        private final String jobId;
+        private final String flow;
+        private final long submittedAt;
+        private volatile Status status = Status.RUNNING;
+        private volatile long finishedAt;
+        private volatile Object result;
+        private volatile String error;
+
+        Job(String jobId, String flow) {
+            this.jobId = jobId;
+            this.flow = flow;
+            this.submittedAt = System.currentTimeMillis();
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public String getFlow() {
+            return flow;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public Long getFinishedAt() {
+            return status == Status.RUNNING ? null : finishedAt;
+        }
+
+        public Object getResult() {
+            return result;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong lastEviction = new AtomicLong();
+
+    /**
+     * Registers the flow behind [handle] and records its outcome, mapped through [toResult], once it finishes.
+     */
+    public <T> Job track(FlowHandle<T> handle, String flow, Function<T, Object> toResult) {
+        evictFinished();
+        Job job = new Job(handle.getId().getUuid().toString(), flow);
+        jobs.put(job.jobId, job);
+        handle.getReturnValue().then(future -> {
+            // The finish time is written before the status so eviction never sees a finished job without one.
+            job.finishedAt = System.currentTimeMillis();
+            try {
+                job.result = toResult.apply(future.get());
+                job.status = Status.COMPLETED;
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                job.error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+                job.status = Status.FAILED;
+                logger.info("Flow {} ({}) failed: {}", job.jobId, flow, job.error);
+            }
+            return null;
+        });
+        return job;
+    }
+
+    public Optional<Job> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void evictFinished() {
+        long now = System.currentTimeMillis();
+        long last = lastEviction.get();
+        if (now - last < EVICTION_INTERVAL_MILLIS || !lastEviction.compareAndSet(last, now)) return;
+        long cutoff = now - RETENTION_MILLIS;
+        jobs.values().removeIf(job -> job.status != Status.RUNNING && job.finishedAt < cutoff);
+        long finished = jobs.values().stream().filter(job -> job.status != Status.RUNNING).count();
+        if (finished <= MAX_FINISHED_JOBS) return;
+        Iterator<Job> oldest = jobs.values().stream()
+                .filter(job -> job.status != Status.RUNNING)
+                .sorted((a, b) -> Long.compare(a.finishedAt, b.finishedAt))
+                .iterator();
+        while (finished-- > MAX_FINISHED_JOBS && oldest.hasNext()) {
+            jobs.remove(oldest.next().jobId);
+        }
+    }
+}
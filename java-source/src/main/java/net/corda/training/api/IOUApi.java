@@ -1,10 +1,16 @@
 package net.corda.training.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.corda.client.jackson.JacksonSupport;
 import net.corda.core.contracts.*;
 import net.corda.core.identity.CordaX500Name;
 import net.corda.core.identity.Party;
 import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.FlowHandle;
 import net.corda.core.node.NodeInfo;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
 import net.corda.core.transactions.SignedTransaction;
 import net.corda.core.internal.InternalUtils;
 import net.corda.core.internal.FetchDataFlow.Result;
@@ -12,37 +18,80 @@ import net.corda.finance.contracts.asset.Cash;
 import net.corda.finance.flows.CashIssueFlow;
 
 import net.corda.finance.workflows.GetBalances;
+import net.corda.training.flow.IOUExposureFlow;
 import net.corda.training.flow.IOUIssueFlow;
 import net.corda.training.flow.IOUSettleFlow;
 import net.corda.training.flow.IOUTransferFlow;
 import net.corda.training.flow.SelfIssueCashFlow;
+import net.corda.training.schema.IOUSchemaV1;
 import net.corda.training.state.IOUState;
 
 import java.util.*;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.glassfish.jersey.server.ChunkedOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * This API is accessible from /api/iou. The endpoint paths specified below are relative to it.
  * We've defined a bunch of endpoints to deal with IOUs, cash and the various operations you can perform with them.
+ * Closing the API closes the RPC connection pool and stops the feeds and threads of the services it started.
  */
 @Path("iou")
-public class IOUApi {
+public class IOUApi implements AutoCloseable {
     private final CordaRPCOps rpcOps;
+    private final RpcConnectionPool rpcPool;
     private final CordaX500Name me;
+    private final ObjectMapper mapper;
+    private final IOUReadModel readModel;
+    private final CashBalanceCache cashBalanceCache;
+    private final VaultEventStream eventStream;
+    private final PeerDirectory peerDirectory;
+    private final FlowJobs flowJobs = new FlowJobs();
 
     private static final Logger logger = LoggerFactory.getLogger(IOUApi.class);
+    private static final long EXPOSURE_TIMEOUT_SECONDS = 10;
 
     public IOUApi(CordaRPCOps rpcOps) {
         this.rpcOps = rpcOps;
+        // Request traffic goes through the pool; the long-lived feeds below stay on the webserver's own connection.
+        this.rpcPool = RpcConnectionPool.fromSystemProperties(rpcOps);
         this.me = rpcOps.nodeInfo().getLegalIdentities().get(0).getName();
+        this.mapper = JacksonSupport.createDefaultMapper(rpcOps);
+        this.mapper.registerModule(new CompactViewModule());
+        this.readModel = new IOUReadModel(rpcOps);
+        this.readModel.start();
+        this.cashBalanceCache = new CashBalanceCache(rpcOps);
+        this.cashBalanceCache.start();
+        this.eventStream = new VaultEventStream(mapper, readModel, cashBalanceCache);
+        this.peerDirectory = new PeerDirectory(rpcOps, mapper, me);
+        this.peerDirectory.start();
+    }
+
+    @Override
+    public void close() {
+        eventStream.close();
+        peerDirectory.close();
+        cashBalanceCache.close();
+        readModel.close();
+        rpcPool.close();
     }
 
     /** Helpers for filtering the network map cache. */
@@ -50,10 +99,8 @@ public class IOUApi {
         return BCStyle.INSTANCE.toString(name);
     }
 
-    private boolean isNotary(NodeInfo nodeInfo) {
-        return !rpcOps.notaryIdentities()
-                .stream().filter(el -> nodeInfo.isLegalIdentity(el))
-                .collect(Collectors.toList()).isEmpty();
+    private boolean isNotary(NodeInfo nodeInfo, Set<Party> notaries) {
+        return nodeInfo.getLegalIdentities().stream().anyMatch(notaries::contains);
     }
 
     private boolean isMe(NodeInfo nodeInfo){
@@ -79,129 +126,394 @@ public class IOUApi {
     /**
      * Returns all parties registered with the [NetworkMapService]. These names can be used to look up identities
      * using the [IdentityService].
+     * The list is kept current from the network map feed by the [PeerDirectory] and served pre-rendered.
      */
     @GET
     @Path("peers")
     @Produces(MediaType.APPLICATION_JSON)
-    public HashMap<String, List<String>> getPeers() {
+    public Response getPeers() {
+        if (peerDirectory.isReady()) {
+            return Response.ok(peerDirectory.getJson()).build();
+        }
         HashMap<String, List<String>> myMap = new HashMap<>();
+        Set<Party> notaries = new HashSet<>(rpcPool.read(CordaRPCOps::notaryIdentities));
 
         // Find all nodes that are not notaries, ourself, or the network map.
-        Stream<NodeInfo> filteredNodes = rpcOps.networkMapSnapshot().stream()
-                .filter(el -> !isNotary(el) && !isMe(el) && !isNetworkMap(el));
+        Stream<NodeInfo> filteredNodes = rpcPool.read(CordaRPCOps::networkMapSnapshot).stream()
+                .filter(el -> !isNotary(el, notaries) && !isMe(el) && !isNetworkMap(el));
         // Get their names as strings
         List<String> nodeNames = filteredNodes.map(el -> el.getLegalIdentities().get(0).getName().toString())
                 .collect(Collectors.toList());
 
         myMap.put("peers", nodeNames);
-        return myMap;
+        return Response.ok(myMap).build();
     }
 
     /**
      * Task 1
-     * Displays all IOU states that exist in the node's vault.
-     * TODO: Return a list of IOUStates on ledger
-     * Hint - Use [rpcOps] to query the vault all unconsumed [IOUState]s
+     * Displays a page of the IOU states that exist in the node's vault.
+     * Pages are selected with [page], [pageSize] and [sort] (e.g. "amount,desc"), or with the opaque [cursor] returned
+     * in the "nextCursor" header of the previous page. The total number of matching states is returned in the
+     * "totalStatesAvailable" header. A cursor holds an offset (see [PageRequest]), so IOUs recorded or consumed
+     * between requests can shift the pages that follow.
+     * With [stream] set, every IOU from the selected page onwards is streamed back as one chunked JSON array. The
+     * stream is paged by offset too, so it is not a snapshot; see [VaultStreamingOutput].
+     * Pages in recorded order are served from the in-memory [IOUReadModel] once it has synced with the vault. While
+     * the model's feed is down such a page may be out of date: it then carries a "stalenessMillis" header and a
+     * "Warning: 110" (response is stale) header.
+     * With [view] set to "compact" each IOU is returned as a [CompactIOU] rather than the full [StateAndRef].
+     * Responses carry an ETag from the read model's version and the normalized page, sort, view and stream
+     * parameters, so each representation has its own tag; a request whose If-None-Match still matches gets 304.
+     * With [since] set, only the IOUs recorded and consumed since then are returned instead; see [VaultChanges].
      */
     @GET
     @Path("ious")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<StateAndRef<IOUState>> getIOUs() {
-        // Filter by state type: IOU.
-        return rpcOps.vaultQuery(IOUState.class).getStates();
+    public Response getIOUs(@QueryParam(value = "page") Integer page,
+                            @QueryParam(value = "pageSize") Integer pageSize,
+                            @QueryParam(value = "sort") String sort,
+                            @QueryParam(value = "cursor") String cursor,
+                            @QueryParam(value = "stream") boolean stream,
+                            @QueryParam(value = "view") String view,
+                            @QueryParam(value = "since") String since,
+                            @Context Request request) {
+        final PageRequest pageRequest;
+        final Sort vaultSort;
+        final boolean compact;
+        final Instant sinceInstant;
+        try {
+            pageRequest = PageRequest.of(cursor, page, pageSize, sort);
+            vaultSort = pageRequest.toSort(IOUSchemaV1.PersistentIOU.class);
+            compact = isCompact(view);
+            sinceInstant = since == null ? null : VaultChanges.parseSince(since);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        if (sinceInstant != null) {
+            Function<StateAndRef<IOUState>, ?> projection = compact ? CompactIOU::of : Function.identity();
+            return Response.ok(VaultChanges.since(rpcPool, mapper, IOUState.class, sinceInstant, projection)).build();
+        }
+
+        // Taken before the states are read, so the tag can only ever be older than the body it labels.
+        final EntityTag tag = entityTag("ious", readModel.getVersion(),
+                pageRequest.toKey() + "|" + (compact ? "compact" : "full") + "|" + (stream ? "stream" : "page"));
+        Response notModified = notModified(request, tag);
+        if (notModified != null) return notModified;
+
+        if (stream) {
+            Function<StateAndRef<IOUState>, ?> projection = compact ? CompactIOU::of : Function.identity();
+            return Response.ok(new VaultStreamingOutput<>(rpcPool, mapper, IOUState.class,
+                    new QueryCriteria.VaultQueryCriteria(), pageRequest, vaultSort, projection)).tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+
+        final List<StateAndRef<IOUState>> states;
+        final long totalStatesAvailable;
+        long stalenessMillis = 0;
+        if (readModel.isReady() && readModel.supports(pageRequest)) {
+            // Served from memory, no RPC round trip.
+            stalenessMillis = readModel.getStalenessMillis();
+            states = readModel.page(pageRequest);
+            totalStatesAvailable = readModel.size();
+        } else {
+            // Filter by state type: IOU.
+            Vault.Page<IOUState> result = rpcPool.read(ops -> ops.vaultQueryBy(
+                    new QueryCriteria.VaultQueryCriteria(),
+                    pageRequest.toPageSpecification(),
+                    vaultSort,
+                    IOUState.class));
+            states = result.getStates();
+            totalStatesAvailable = result.getTotalStatesAvailable();
+        }
+
+        Object entity = compact ? states.stream().map(CompactIOU::of).collect(Collectors.toList()) : states;
+        Response.ResponseBuilder response = Response.ok(entity)
+                .tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header("totalStatesAvailable", totalStatesAvailable);
+        if (pageRequest.hasNext(totalStatesAvailable)) {
+            response.header("nextCursor", pageRequest.next().toCursor());
+        }
+        if (stalenessMillis > 0) {
+            response.header("stalenessMillis", stalenessMillis)
+                    .header("Warning", "110 - \"Response is Stale\"");
+        }
+        return response.build();
+    }
+
+    /**
+     * Reports how busy the read and write RPC lanes of the [RpcConnectionPool] are.
+     */
+    @GET
+    @Path("rpc-pool")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> getRpcPoolMetrics() {
+        return rpcPool.getMetrics();
+    }
+
+    /**
+     * Reports the health of the in-memory IOU read model that serves [getIOUs].
+     */
+    @GET
+    @Path("ious/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> getIOUReadModelStatus() {
+        return readModel.getStatus();
+    }
+
+    /**
+     * Streams IOU and cash changes as Server-Sent Events, so the dashboard can apply deltas instead of polling.
+     * See [VaultEventStream] for the events sent.
+     */
+    @GET
+    @Path("events")
+    @Produces("text/event-stream")
+    public ChunkedOutput<String> getEvents() {
+        return eventStream.subscribe();
+    }
+
+    /**
+     * The event stream behind "events", for hosts that serve it without Jersey.
+     */
+    public VaultEventStream getEventStream() {
+        return eventStream;
     }
 
     /**
      * Displays all cash states that exist in the node's vault.
+     * The states are streamed back page by page as one chunked JSON array, so the response never has to be held in
+     * memory in full.
+     * With [view] set to "compact" each state is returned as a [CompactCash] rather than the full [StateAndRef].
+     * Responses carry an ETag from the [CashBalanceCache] version and the normalized page size and view; a request whose
+     * If-None-Match still matches gets 304.
+     * With [since] set, only the cash states recorded and consumed since then are returned instead; see [VaultChanges].
      */
     @GET
     @Path("cash")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<StateAndRef<Cash.State>> getCash() {
+    public Response getCash(@QueryParam(value = "pageSize") Integer pageSize,
+                            @QueryParam(value = "view") String view,
+                            @QueryParam(value = "since") String since,
+                            @Context Request request) {
+        final PageRequest pageRequest;
+        final Sort vaultSort;
+        final boolean compact;
+        final Instant sinceInstant;
+        try {
+            pageRequest = new PageRequest(null, pageSize, null);
+            vaultSort = pageRequest.toSort(null);
+            compact = isCompact(view);
+            sinceInstant = since == null ? null : VaultChanges.parseSince(since);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        if (sinceInstant != null) {
+            Function<StateAndRef<Cash.State>, ?> projection = compact ? CompactCash::of : Function.identity();
+            return Response.ok(VaultChanges.since(rpcPool, mapper, Cash.State.class, sinceInstant, projection)).build();
+        }
+        final EntityTag tag = entityTag("cash", cashBalanceCache.getVersion(),
+                pageRequest.getPageSize() + "|" + (compact ? "compact" : "full"));
+        Response notModified = notModified(request, tag);
+        if (notModified != null) return notModified;
+
         // Filter by state type: Cash.
-        return rpcOps.vaultQuery(Cash.State.class).getStates();
+        Function<StateAndRef<Cash.State>, ?> projection = compact ? CompactCash::of : Function.identity();
+        return Response.ok(new VaultStreamingOutput<>(rpcPool, mapper, Cash.State.class,
+                new QueryCriteria.VaultQueryCriteria(), pageRequest, vaultSort, projection)).tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
     }
 
     /**
-     * Displays all cash states that exist in the node's vault.
+     * The tag for [resource] at [version], as requested with the normalized query parameters in [variant], so
+     * different pages or views of the same version never share a tag. Weak, since the same representation may be sent
+     * gzipped or not; tagged responses carry Vary: Accept-Encoding to say so.
+     */
+    private static EntityTag entityTag(String resource, String version, String variant) {
+        if (version == null) return null;
+        String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(variant.getBytes(StandardCharsets.UTF_8));
+        return new EntityTag(resource + "-" + version + (encoded.isEmpty() ? "" : "-" + encoded), true);
+    }
+
+    /**
+     * The 304 response when the client's If-None-Match already names [tag], otherwise null.
+     */
+    private static Response notModified(Request request, EntityTag tag) {
+        if (tag == null) return null;
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        return notModified == null ? null : notModified.tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+    }
+
+    private static boolean isCompact(String view) {
+        if (view == null || view.equals("full")) return false;
+        if (view.equals("compact")) return true;
+        throw new IllegalArgumentException("view must be \"full\" or \"compact\".");
+    }
+
+    /**
+     * Displays the node's cash balances per currency.
+     * Balances are served from the [CashBalanceCache]. Pass [refresh] to have the cache reload them from the vault in the
+     * background; this response still carries the current balances.
+     * Responses carry an ETag from the [CashBalanceCache] version.
      */
     @GET
     @Path("cash-balances")
     @Produces(MediaType.APPLICATION_JSON)
     // Display cash balances.
-    public Map<Currency,Amount<Currency>> getCashBalances(){
-        return GetBalances.getCashBalances(rpcOps);
+    public Response getCashBalances(@QueryParam(value = "refresh") boolean refresh,
+                                    @Context Request request){
+        if (refresh) {
+            cashBalanceCache.refresh();
+        }
+        final EntityTag tag = entityTag("cash-balances", cashBalanceCache.getVersion(), "");
+        Response notModified = notModified(request, tag);
+        if (notModified != null) return notModified;
+
+        Map<Currency, Amount<Currency>> balances = cashBalanceCache.isReady() ? cashBalanceCache.getBalances() : rpcPool.read(GetBalances::getCashBalances);
+        return Response.ok(balances).tag(tag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+    }
+
+    /**
+     * Displays how much each borrower still owes us, per currency. The totals are aggregated inside the node by the
+     * [IOUExposureFlow] so only the summary crosses RPC.
+     * The flow is started on a write lane, like every other flow, and the request waits at most
+     * [EXPOSURE_TIMEOUT_SECONDS] for its result before answering 504 Gateway Timeout.
+     */
+    @GET
+    @Path("exposure")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getExposure() {
+        FlowHandle<Map<String, Map<Currency, Amount<Currency>>>> handle = rpcPool.write(ops -> ops.startFlowDynamic(IOUExposureFlow.class));
+        try {
+            return Response.ok(handle.getReturnValue().get(EXPOSURE_TIMEOUT_SECONDS, TimeUnit.SECONDS)).build();
+        } catch (TimeoutException e) {
+            return Response.status(Response.Status.GATEWAY_TIMEOUT)
+                    .entity("The exposure was not computed within " + EXPOSURE_TIMEOUT_SECONDS + "s.")
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("The server is shutting down.").build();
+        } catch (ExecutionException e) {
+            logger.error("Exposure flow failed.", e.getCause());
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("The exposure could not be computed.").build();
+        }
+    }
+
+    /**
+     * Reports the outcome of a flow submitted through one of the endpoints below.
+     */
+    @GET
+    @Path("jobs/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getJob(@PathParam("id") String id) {
+        return flowJobs.get(id)
+                .map(job -> Response.ok(job).build())
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).entity("Unknown job " + id).build());
     }
 
     /**
      * Initiates a flow to agree an IOU between two parties.
+     * The flow runs in the background; the response is 202 Accepted with the job to poll at /api/iou/jobs/{id}.
      * Example request:
      * curl -X PUT 'http://localhost:10007/api/iou/issue-iou?amount=99&currency=GBP&party=O=ParticipantC,L=New%20York,C=US
      */
-//    @PUT
-//    @Path("issue-iou")
-//    public Response issueIOU(@QueryParam(value = "amount") int amount,
-//                             @QueryParam(value = "currency") String currency,
-//                             @QueryParam(value = "party") String party) throws IllegalArgumentException {
-//        // Get party objects for myself and the counterparty.
-//        Party me = rpcOps.nodeInfo().getLegalIdentities().get(0);
-//        Party lender = Optional.ofNullable(rpcOps.wellKnownPartyFromX500Name(CordaX500Name.parse(party))).orElseThrow(() -> new IllegalArgumentException("Unknown party name."));
-//        // Create a new IOU state using the parameters given.
-//        try {
-//            IOUState state = new IOUState(new Amount<>((long)amount * 100, Currency.getInstance(currency)), lender, me);
-//            // Start the IOUIssueFlow. We block and waits for the flow to return.
-//            SignedTransaction result = rpcOps.startTrackedFlowDynamic(IOUIssueFlow.InitiatorFlow.class, state).getReturnValue().get();
-//            // Return the response.
-//            return Response
-//                    .status(Response.Status.CREATED)
-//                    .entity(String.format("Transaction id %h committed to ledger.\n%h", result.getId(), result.getTx().getOutputs().get(0)))
-//                    .build();
-//            // For the purposes of this demo app, we do not differentiate by exception type.
-//        } catch (Exception e) {
-//            return Response
-//                    .status(Response.Status.BAD_REQUEST)
-//                    .entity(e.getMessage())
-//                    .build();
-//        }
-//    }
+    @PUT
+    @Path("issue-iou")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response issueIOU(@QueryParam(value = "amount") int amount,
+                             @QueryParam(value = "currency") String currency,
+                             @QueryParam(value = "party") String party) {
+        try {
+            // Get party objects for myself and the counterparty.
+            Party me = rpcPool.read(CordaRPCOps::nodeInfo).getLegalIdentities().get(0);
+            Party lender = wellKnownParty(party);
+            // Create a new IOU state using the parameters given.
+            IOUState state = new IOUState(new Amount<>((long) amount * 100, currency(currency)), lender, me);
+            return accepted(rpcPool.write(ops -> ops.startFlowDynamic(IOUIssueFlow.InitiatorFlow.class, state)), "issue-iou", IOUApi::describe);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
 
     /**
      * Transfers an IOU specified by [linearId] to a new party.
      */
-    @GET
+    @POST
     @Path("transfer-iou")
+    @Produces(MediaType.APPLICATION_JSON)
     public Response transferIOU(@QueryParam(value = "id") String id,
                                 @QueryParam(value = "party") String party) {
-        return Response
-                .status(Response.Status.NOT_IMPLEMENTED)
-                .entity("Not implemented")
-                .build();
+        try {
+            UniqueIdentifier linearId = UniqueIdentifier.Companion.fromString(id);
+            Party newLender = wellKnownParty(party);
+            return accepted(rpcPool.write(ops -> ops.startFlowDynamic(IOUTransferFlow.InitiatorFlow.class, linearId, newLender)), "transfer-iou", IOUApi::describe);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
     }
 
     /**
      * Settles an IOU. Requires cash in the right currency to be able to settle.
      */
-    @GET
+    @POST
     @Path("settle-iou")
+    @Produces(MediaType.APPLICATION_JSON)
     public Response settleIOU(@QueryParam(value = "id") String id,
                               @QueryParam(value = "amount") int amount,
                               @QueryParam(value = "currency") String currency) {
-        return Response
-                .status(Response.Status.NOT_IMPLEMENTED)
-                .entity("Not implemented")
-                .build();
+        try {
+            UniqueIdentifier linearId = UniqueIdentifier.Companion.fromString(id);
+            Amount<Currency> settleAmount = new Amount<>((long) amount * 100, currency(currency));
+            return accepted(rpcPool.write(ops -> ops.startFlowDynamic(IOUSettleFlow.InitiatorFlow.class, linearId, settleAmount)), "settle-iou", IOUApi::describe);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
     }
 
     /**
      * Helper end-point to issue some cash to ourselves.
      */
-    @GET
+    @POST
     @Path("self-issue-cash")
+    @Produces(MediaType.APPLICATION_JSON)
     public Response selfIssueCash(@QueryParam(value = "amount") int amount,
                                   @QueryParam(value = "currency") String currency) {
+        try {
+            Amount<Currency> issueAmount = new Amount<>((long) amount * 100, currency(currency));
+            return accepted(rpcPool.write(ops -> ops.startFlowDynamic(SelfIssueCashFlow.class, issueAmount)), "self-issue-cash",
+                    cash -> cash.getAmount().toString());
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    private static Currency currency(String currency) {
+        if (currency == null) throw new IllegalArgumentException("A currency code is required.");
+        return Currency.getInstance(currency);
+    }
+
+    private Party wellKnownParty(String party) {
+        if (party == null) throw new IllegalArgumentException("A party name is required.");
+        CordaX500Name name = CordaX500Name.parse(party);
+        return Optional.ofNullable(rpcPool.read(ops -> ops.wellKnownPartyFromX500Name(name)))
+                .orElseThrow(() -> new IllegalArgumentException("Unknown party name."));
+    }
+
+    private <T> Response accepted(FlowHandle<T> handle, String flow, Function<T, Object> toResult) {
+        FlowJobs.Job job = flowJobs.track(handle, flow, toResult);
         return Response
-                .status(Response.Status.NOT_IMPLEMENTED)
-                .entity("Not implemented")
+                .status(Response.Status.ACCEPTED)
+                .location(URI.create("iou/jobs/" + job.getJobId()))
+                .entity(job)
                 .build();
     }
-}
\ No newline at end of file
+
+    private static Response badRequest(Exception e) {
+        return Response
+                .status(Response.Status.BAD_REQUEST)
+                .entity(e.getMessage())
+                .build();
+    }
+
+    private static Object describe(SignedTransaction stx) {
+        return String.format("Transaction id %s committed to ledger.", stx.getId());
+    }
+}
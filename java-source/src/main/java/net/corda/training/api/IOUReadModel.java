@@ -0,0 +1,360 @@
+package net.corda.training.api;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.DataFeed;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.training.state.IOUState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Subscription;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory copy of the unconsumed [IOUState]s in the node's vault, kept in recorded order.
+ * The model subscribes to [CordaRPCOps.vaultTrackBy] before paging in the existing states, buffers any updates that
+ * arrive while the snapshot is loading and then replays them, so no update is lost between the two. Paging is by
+ * offset, so a state consumed while the snapshot loads shifts the later pages and can make one be skipped; the load is
+ * therefore checked against the feed's own count of unconsumed states and redone if any are missing.
+ *
+ * A reload builds a fresh view on a new feed while the current view keeps serving reads on its own feed; the current
+ * feed is only dropped once the fresh view has gone live. Reloads that fail back off, doubling the delay each time up
+ * to [RESYNC_DELAY_SECONDS]. If the feed errors (for example because the RPC connection dropped) the current view
+ * keeps serving reads, marked as stale, until [MAX_STALE_RELOADS] reloads in a row have failed; after that the model
+ * reports itself not ready, so reads go to the vault, until a reload succeeds.
+ */
+public class IOUReadModel implements AutoCloseable {
+
+    /**
+     * Told about every update from the feed, and about each resync after which updates may have been missed.
+     */
+    public interface Listener {
+        void onUpdate(Vault.Update<IOUState> update);
+
+        void onResync();
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(IOUReadModel.class);
+    private static final long RESYNC_DELAY_SECONDS = 5;
+    private static final long FIRST_RELOAD_DELAY_MILLIS = 100;
+    private static final int MAX_STALE_RELOADS = 5;
+
+    private final CordaRPCOps rpcOps;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "iou-read-model");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean resyncScheduled = new AtomicBoolean(false);
+    private final AtomicLong updatesApplied = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicInteger failedReloads = new AtomicInteger();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final String instance = Long.toString(System.nanoTime(), 36);
+
+    private volatile View view = null;
+    private volatile boolean connected = false;
+    private volatile long lastUpdateAt = 0;
+    private volatile long disconnectedAt = 0;
+    private Subscription subscription;
+
+    public IOUReadModel(CordaRPCOps rpcOps) {
+        this.rpcOps = rpcOps;
+    }
+
+    public void start() {
+        executor.execute(this::sync);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (subscription != null) subscription.unsubscribe();
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Whether the model can serve reads: it has loaded a full snapshot, and is either live or has not yet failed
+     * [MAX_STALE_RELOADS] reloads in a row since its feed went down.
+     */
+    public boolean isReady() {
+        return view != null && (connected || failedReloads.get() < MAX_STALE_RELOADS);
+    }
+
+    /**
+     * How long the model has been out of step with the vault, in milliseconds: zero while its feed is live.
+     */
+    public long getStalenessMillis() {
+        return connected ? 0 : System.currentTimeMillis() - disconnectedAt;
+    }
+
+    /**
+     * Only the recorded order is maintained in memory; any other sort must go to the vault.
+     */
+    public boolean supports(PageRequest pageRequest) {
+        return pageRequest.getSortField().equals("recordedTime");
+    }
+
+    public int size() {
+        View current = view;
+        return current == null ? 0 : current.size;
+    }
+
+    public List<StateAndRef<IOUState>> page(PageRequest pageRequest) {
+        View current = view;
+        if (current == null) return Collections.emptyList();
+        long skip = (long) (pageRequest.getPage() - 1) * pageRequest.getPageSize();
+        return current.page(skip, pageRequest.getPageSize(), pageRequest.isDescending());
+    }
+
+    /**
+     * A tag that changes whenever the unconsumed IOUs may have changed: on every update from the feed and on every
+     * resync. It is null while the feed is down, since changes can't be seen then.
+     * Read it before reading the IOUs it describes; a tag older than the data only costs the client one extra fetch.
+     */
+    public String getVersion() {
+        return connected ? instance + "-" + resyncs.get() + "-" + updatesApplied.get() : null;
+    }
+
+    /**
+     * Health of the model: whether the feed is live, how long the model has been out of step with the vault, and how
+     * long ago the last update was applied.
+     */
+    public Map<String, Object> getStatus() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ready", isReady());
+        status.put("connected", connected);
+        status.put("states", size());
+        status.put("updatesApplied", updatesApplied.get());
+        status.put("resyncs", resyncs.get());
+        status.put("failedReloads", failedReloads.get());
+        status.put("stalenessMillis", getStalenessMillis());
+        status.put("lastUpdateMillisAgo", lastUpdateAt == 0 ? null : now - lastUpdateAt);
+        return status;
+    }
+
+    private void sync() {
+        resyncScheduled.set(false);
+        Subscription newSubscription = null;
+        try {
+            View next = new View();
+            // Subscribe first, then page in the snapshot, so that nothing recorded in between is missed.
+            PageRequest pageRequest = new PageRequest(null, PageRequest.MAX_PAGE_SIZE, "recordedTime");
+            Sort sort = pageRequest.toSort(null);
+            DataFeed<Vault.Page<IOUState>, Vault.Update<IOUState>> feed = rpcOps.vaultTrackBy(
+                    new QueryCriteria.VaultQueryCriteria(), new PageRequest(null, 1, null).toPageSpecification(), sort, IOUState.class);
+            newSubscription = feed.getUpdates().subscribe(update -> {
+                next.onUpdate(update);
+                // Until the new view replaces it, the current view's own feed reports the updates.
+                if (view != next) return;
+                updatesApplied.incrementAndGet();
+                lastUpdateAt = System.currentTimeMillis();
+                listeners.forEach(listener -> listener.onUpdate(update));
+            }, this::onError);
+
+            while (true) {
+                Vault.Page<IOUState> page = rpcOps.vaultQueryBy(new QueryCriteria.VaultQueryCriteria(),
+                        pageRequest.toPageSpecification(), sort, IOUState.class);
+                next.load(page.getStates());
+                if (page.getStates().isEmpty() || !pageRequest.hasNext(page.getTotalStatesAvailable())) break;
+                pageRequest = pageRequest.next();
+            }
+            if (!next.goLive(feed.getSnapshot().getTotalStatesAvailable())) {
+                // The current view, if any, keeps serving reads on its own feed until a complete snapshot has loaded.
+                newSubscription.unsubscribe();
+                reloadLater("IOU read model snapshot changed while loading", null);
+                return;
+            }
+
+            Subscription previous;
+            synchronized (this) {
+                previous = subscription;
+                subscription = newSubscription;
+            }
+            if (previous != null) previous.unsubscribe();
+            view = next;
+            connected = true;
+            failedReloads.set(0);
+            resyncs.incrementAndGet();
+            listeners.forEach(Listener::onResync);
+            logger.info("IOU read model synced with {} states.", next.size);
+        } catch (Exception e) {
+            if (newSubscription != null) newSubscription.unsubscribe();
+            onError(e);
+        }
+    }
+
+    private void onError(Throwable error) {
+        if (connected || disconnectedAt == 0) disconnectedAt = System.currentTimeMillis();
+        connected = false;
+        reloadLater("IOU read model lost its vault feed", error);
+    }
+
+    /**
+     * Schedules a reload unless one is already due, after a delay that doubles with each reload that has failed in a
+     * row, up to [RESYNC_DELAY_SECONDS].
+     */
+    private void reloadLater(String reason, Throwable error) {
+        if (!resyncScheduled.compareAndSet(false, true)) return;
+        int failed = failedReloads.getAndIncrement();
+        long delayMillis = Math.min(FIRST_RELOAD_DELAY_MILLIS << Math.min(failed, 16), TimeUnit.SECONDS.toMillis(RESYNC_DELAY_SECONDS));
+        logger.warn("{}, reloading in {} ms (attempt {}).", reason, delayMillis, failed + 1, error);
+        executor.schedule(this::sync, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One generation of the model. Updates are buffered until the snapshot has been loaded.
+     *
+     * Every state is numbered in recorded order, and a Fenwick tree over those numbers counts the states still
+     * present, so the state at any offset is found in O(log n) and a page is then read straight off [bySequence].
+     * Numbers freed by consumed states are reclaimed by renumbering the states once the tree is full; the tree is sized
+     * to twice the states present, so this happens at most once per that many additions.
+     */
+    private static class View {
+        private static final int MIN_CAPACITY = 1024;
+
+        // Guarded by the view. Readers walk [bySequence] without the lock, once they have found where to start.
+        private final Map<StateRef, Integer> sequenceByRef = new HashMap<>();
+        private volatile ConcurrentSkipListMap<Integer, StateAndRef<IOUState>> bySequence = new ConcurrentSkipListMap<>();
+        private final List<Vault.Update<IOUState>> pending = new ArrayList<>();
+        private int[] tree = new int[MIN_CAPACITY + 1];
+        private int nextSequence = 0;
+        private volatile int size = 0;
+        private boolean live = false;
+
+        synchronized void onUpdate(Vault.Update<IOUState> update) {
+            if (live) apply(update);
+            else pending.add(update);
+        }
+
+        synchronized void load(List<StateAndRef<IOUState>> states) {
+            states.forEach(this::add);
+        }
+
+        /**
+         * Up to [pageSize] states after skipping [skip], in recorded order or its reverse.
+         */
+        List<StateAndRef<IOUState>> page(long skip, int pageSize, boolean descending) {
+            NavigableMap<Integer, StateAndRef<IOUState>> from;
+            synchronized (this) {
+                if (skip >= size) return Collections.emptyList();
+                int start = select(descending ? size - 1 - skip : skip);
+                from = descending ? bySequence.headMap(start, true).descendingMap() : bySequence.tailMap(start, true);
+            }
+            List<StateAndRef<IOUState>> result = new ArrayList<>(pageSize);
+            for (StateAndRef<IOUState> state : from.values()) {
+                if (result.size() == pageSize) break;
+                result.add(state);
+            }
+            return result;
+        }
+
+        /**
+         * Replays the buffered updates and applies later ones as they arrive, provided the snapshot accounts for all
+         * [expected] states that were unconsumed when the feed opened. Each of those was either loaded or, if a page
+         * skipped it, has been consumed since and so appears among the buffered updates; states produced since the
+         * feed opened are not counted. Returns false, leaving the view unusable, if any are missing.
+         */
+        synchronized boolean goLive(long expected) {
+            Set<StateRef> accountedFor = new HashSet<>(sequenceByRef.keySet());
+            Set<StateRef> producedSince = new HashSet<>();
+            for (Vault.Update<IOUState> update : pending) {
+                update.getConsumed().forEach(state -> accountedFor.add(state.getRef()));
+                update.getProduced().forEach(state -> producedSince.add(state.getRef()));
+            }
+            accountedFor.removeAll(producedSince);
+            if (accountedFor.size() != expected) return false;
+
+            pending.forEach(this::apply);
+            pending.clear();
+            live = true;
+            return true;
+        }
+
+        private void apply(Vault.Update<IOUState> update) {
+            update.getConsumed().forEach(state -> remove(state.getRef()));
+            update.getProduced().forEach(this::add);
+        }
+
+        private void add(StateAndRef<IOUState> state) {
+            if (sequenceByRef.containsKey(state.getRef())) return;
+            if (nextSequence == tree.length - 1) renumber();
+            int sequence = nextSequence++;
+            sequenceByRef.put(state.getRef(), sequence);
+            bySequence.put(sequence, state);
+            count(sequence, 1);
+            size++;
+        }
+
+        private void remove(StateRef ref) {
+            Integer sequence = sequenceByRef.remove(ref);
+            if (sequence != null) {
+                bySequence.remove(sequence);
+                count(sequence, -1);
+                size--;
+            }
+        }
+
+        private void count(int sequence, int delta) {
+            for (int i = sequence + 1; i < tree.length; i += i & -i) tree[i] += delta;
+        }
+
+        /**
+         * The sequence of the state at offset [index] in recorded order.
+         */
+        private int select(long index) {
+            int position = 0;
+            long remaining = index;
+            for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+                int next = position + step;
+                if (next < tree.length && tree[next] <= remaining) {
+                    position = next;
+                    remaining -= tree[next];
+                }
+            }
+            return position;
+        }
+
+        /**
+         * Numbers the states present 0 to size - 1, keeping their order, into a tree with room for as many again.
+         * Readers still walking the old map see it unchanged.
+         */
+        private void renumber() {
+            int capacity = Math.max(MIN_CAPACITY, size * 2);
+            ConcurrentSkipListMap<Integer, StateAndRef<IOUState>> renumbered = new ConcurrentSkipListMap<>();
+            int[] rebuilt = new int[capacity + 1];
+            int sequence = 0;
+            for (StateAndRef<IOUState> state : bySequence.values()) {
+                sequenceByRef.put(state.getRef(), sequence);
+                renumbered.put(sequence, state);
+                rebuilt[sequence + 1] = 1;
+                sequence++;
+            }
+            for (int i = 1; i <= capacity; i++) {
+                int parent = i + (i & -i);
+                if (parent <= capacity) rebuilt[parent] += rebuilt[i];
+            }
+            tree = rebuilt;
+            bySequence = renumbered;
+            nextSequence = sequence;
+        }
+    }
+}
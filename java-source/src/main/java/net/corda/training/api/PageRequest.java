@@ -0,0 +1,150 @@
+package net.corda.training.api;
+
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+import net.corda.core.schemas.StatePersistable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_SIZE;
+
+/**
+ * A page of vault results requested over the API, as a page number, a page size and a sort expression of the form
+ * "field[,asc|desc]". The request round trips through a cursor so that clients can walk the vault without knowing how
+ * pages are numbered.
+ *
+ * The cursor is opaque to clients but is only an offset: it names the next page number, not the last row seen. The
+ * vault still skips every earlier row to reach a deep page, and a state recorded or consumed between two requests
+ * shifts the later pages, so a walk can repeat or miss rows. Paging on the last sort value and state ref instead would
+ * need a "(field, ref) after (value, ref)" condition, which vault query criteria can't express for every sort field.
+ */
+public class PageRequest {
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final int page;
+    private final int pageSize;
+    private final String sort;
+    private final String sortField;
+    private final boolean descending;
+
+    public PageRequest(Integer page, Integer pageSize, String sort) {
+        this.page = page == null ? DEFAULT_PAGE_NUM : page;
+        this.pageSize = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        this.sort = sort == null || sort.isEmpty() ? "recordedTime" : sort;
+        String[] parts = this.sort.split(",", 2);
+        this.sortField = parts[0].trim();
+        String direction = parts.length > 1 ? parts[1].trim() : "asc";
+        if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("Sort direction must be asc or desc.");
+        }
+        this.descending = direction.equalsIgnoreCase("desc");
+        if (this.page < DEFAULT_PAGE_NUM) throw new IllegalArgumentException("page must be at least " + DEFAULT_PAGE_NUM + ".");
+        if (this.pageSize < 1 || this.pageSize > MAX_PAGE_SIZE) throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+
+    /**
+     * Builds the request from either an opaque [cursor], which wins if present, or the explicit query parameters.
+     */
+    public static PageRequest of(String cursor, Integer page, Integer pageSize, String sort) {
+        if (cursor == null || cursor.isEmpty()) return new PageRequest(page, pageSize, sort);
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+            return new PageRequest(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    /**
+     * The field named by the sort expression, without its direction.
+     */
+    public String getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public PageRequest next() {
+        return new PageRequest(page + 1, pageSize, sort);
+    }
+
+    /**
+     * Whether there are results beyond this page, given the total reported by the vault.
+     */
+    public boolean hasNext(long totalStatesAvailable) {
+        return (long) page * pageSize < totalStatesAvailable;
+    }
+
+    public String toCursor() {
+        String raw = page + "|" + pageSize + "|" + sort;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The request in a normal form. Requests for the same page have the same key whether they came as a cursor or as
+     * query parameters, and whether or not the sort direction was spelt out.
+     */
+    public String toKey() {
+        return page + "|" + pageSize + "|" + sortField + "," + (descending ? "desc" : "asc");
+    }
+
+    public PageSpecification toPageSpecification() {
+        return new PageSpecification(page, pageSize);
+    }
+
+    /**
+     * Converts the sort expression into a vault [Sort]. Standard vault attributes are always available; any other field
+     * name is looked up on [entity], the mapped schema of the state being queried. The state reference is appended as a
+     * tie breaker so that page boundaries are stable.
+     */
+    public Sort toSort(Class<? extends StatePersistable> entity) {
+        String field = sortField;
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        SortAttribute attribute;
+        switch (field) {
+            case "recordedTime":
+                attribute = new SortAttribute.Standard(Sort.VaultStateAttribute.RECORDED_TIME);
+                break;
+            case "consumedTime":
+                attribute = new SortAttribute.Standard(Sort.VaultStateAttribute.CONSUMED_TIME);
+                break;
+            case "linearId":
+                attribute = new SortAttribute.Standard(Sort.LinearStateAttribute.UUID);
+                break;
+            default:
+                if (entity == null) throw new IllegalArgumentException("Unsupported sort field " + field + ".");
+                try {
+                    entity.getDeclaredField(field);
+                } catch (NoSuchFieldException e) {
+                    throw new IllegalArgumentException("Unsupported sort field " + field + ".");
+                }
+                attribute = new SortAttribute.Custom(entity, field);
+        }
+
+        List<Sort.SortColumn> columns = new ArrayList<>();
+        columns.add(new Sort.SortColumn(attribute, direction));
+        columns.add(new Sort.SortColumn(new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF_TXN_ID), Sort.Direction.ASC));
+        columns.add(new Sort.SortColumn(new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF_INDEX), Sort.Direction.ASC));
+        return new Sort(columns);
+    }
+}
@@ -0,0 +1,149 @@
+package net.corda.training.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.DataFeed;
+import net.corda.core.node.NodeInfo;
+import net.corda.core.node.services.NetworkMapCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Subscription;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The other nodes on the network that IOUs can be agreed with, kept in memory from [CordaRPCOps.networkMapFeed].
+ * Notaries, this node and the network map are left out. Notary identities are held in a set that is only reloaded when
+ * the network map changes, and the "peers" response body is rendered once per change, so serving it costs no RPC
+ * calls at all.
+ */
+public class PeerDirectory implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PeerDirectory.class);
+    private static final long RESYNC_DELAY_SECONDS = 5;
+
+    private final CordaRPCOps rpcOps;
+    private final ObjectMapper mapper;
+    private final CordaX500Name me;
+    private final Map<CordaX500Name, NodeInfo> nodes = new TreeMap<>(Comparator.comparing(CordaX500Name::toString));
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "peer-directory");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean resyncScheduled = new AtomicBoolean(false);
+
+    private Set<Party> notaries = Collections.emptySet();
+    private volatile List<String> peers = null;
+    private volatile String json = null;
+    private Subscription subscription;
+
+    public PeerDirectory(CordaRPCOps rpcOps, ObjectMapper mapper, CordaX500Name me) {
+        this.rpcOps = rpcOps;
+        this.mapper = mapper;
+        this.me = me;
+    }
+
+    public void start() {
+        executor.execute(this::sync);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        synchronized (this) {
+            if (subscription != null) subscription.unsubscribe();
+        }
+    }
+
+    public boolean isReady() {
+        return json != null;
+    }
+
+    /**
+     * The peer names, sorted.
+     */
+    public List<String> getPeers() {
+        return peers == null ? Collections.emptyList() : peers;
+    }
+
+    /**
+     * The rendered {"peers": [...]} response body.
+     */
+    public String getJson() {
+        return json;
+    }
+
+    private void sync() {
+        resyncScheduled.set(false);
+        try {
+            DataFeed<List<NodeInfo>, NetworkMapCache.MapChange> feed = rpcOps.networkMapFeed();
+            synchronized (this) {
+                if (subscription != null) subscription.unsubscribe();
+                nodes.clear();
+                feed.getSnapshot().forEach(this::put);
+                notaries = new HashSet<>(rpcOps.notaryIdentities());
+                render();
+                // Changes are applied on our own thread, since they make an RPC call of their own.
+                subscription = feed.getUpdates().subscribe(change -> executor.execute(() -> onChange(change)), this::onError);
+            }
+            logger.info("Peer directory synced with {} nodes.", feed.getSnapshot().size());
+        } catch (Exception e) {
+            onError(e);
+        }
+    }
+
+    private synchronized void onChange(NetworkMapCache.MapChange change) {
+        if (change instanceof NetworkMapCache.MapChange.Removed) {
+            remove(change.getNode());
+        } else if (change instanceof NetworkMapCache.MapChange.Modified) {
+            remove(((NetworkMapCache.MapChange.Modified) change).getPreviousNode());
+            put(change.getNode());
+        } else {
+            put(change.getNode());
+        }
+        // A node joining or leaving may be a notary; this is the only time the notary list is fetched.
+        notaries = new HashSet<>(rpcOps.notaryIdentities());
+        render();
+    }
+
+    private void put(NodeInfo node) {
+        nodes.put(node.getLegalIdentities().get(0).getName(), node);
+    }
+
+    private void remove(NodeInfo node) {
+        nodes.remove(node.getLegalIdentities().get(0).getName());
+    }
+
+    private void render() {
+        List<String> names = new ArrayList<>();
+        nodes.forEach((name, node) -> {
+            if (isPeer(name, node)) names.add(name.toString());
+        });
+        try {
+            json = mapper.writeValueAsString(Collections.singletonMap("peers", names));
+            peers = Collections.unmodifiableList(names);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render the peer list.", e);
+        }
+    }
+
+    private boolean isPeer(CordaX500Name name, NodeInfo node) {
+        return !name.equals(me)
+                && !name.getOrganisation().equals("Network Map Service")
+                && node.getLegalIdentities().stream().noneMatch(notaries::contains);
+    }
+
+    private void onError(Throwable error) {
+        if (resyncScheduled.compareAndSet(false, true)) {
+            logger.warn("Network map feed lost, resyncing in {}s.", RESYNC_DELAY_SECONDS, error);
+            executor.schedule(this::sync, RESYNC_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package net.corda.training.api;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips API responses for clients that accept it, once a body grows past [THRESHOLD_BYTES].
+ * The response filter decides from the request's Accept-Encoding whether a response may be compressed; the writer
+ * interceptor then buffers the start of the body and only switches to gzip, setting Content-Encoding, if the body
+ * outgrows the threshold before anything has been sent. Small bodies go out as they are, since compressing them costs
+ * more CPU than it saves on the wire. Streamed bodies stay streamed: the gzip stream is sync-flushed whenever the
+ * writer flushes. Server-Sent Events and bodies that are already encoded are left alone.
+ */
+@Provider
+public class ResponseCompression implements ContainerResponseFilter, WriterInterceptor {
+    private static final String COMPRESS = ResponseCompression.class.getName() + ".compress";
+    private static final int THRESHOLD_BYTES = 1024;
+    private static final MediaType SERVER_SENT_EVENTS = MediaType.valueOf("text/event-stream");
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!response.hasEntity() || response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) return;
+        MediaType mediaType = response.getMediaType();
+        if (mediaType != null && mediaType.isCompatible(SERVER_SENT_EVENTS)) return;
+        String vary = response.getHeaderString(HttpHeaders.VARY);
+        if (vary == null || !vary.contains(HttpHeaders.ACCEPT_ENCODING)) {
+            response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (acceptsGzip(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            request.setProperty(COMPRESS, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!Boolean.TRUE.equals(context.getProperty(COMPRESS))) {
+            context.proceed();
+            return;
+        }
+        ThresholdGzipOutputStream output = new ThresholdGzipOutputStream(context.getOutputStream(), context.getHeaders());
+        context.setOutputStream(output);
+        try {
+            context.proceed();
+        } finally {
+            output.finish();
+        }
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip, honouring its q-value so "gzip;q=0" refuses it.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        return quality(acceptEncoding, "gzip") > 0;
+    }
+
+    /**
+     * The q-value an Accept-Encoding header gives [coding]: 1 when it is listed without one, 0 when it is not listed
+     * or the q-value can't be read.
+     */
+    static double quality(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) return 0;
+        for (String listed : acceptEncoding.split(",")) {
+            String[] parts = listed.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase(coding)) continue;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (!parameter.startsWith("q=")) continue;
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Holds back the first [THRESHOLD_BYTES] of the body, then commits to either plain or gzipped output.
+     */
+    private static class ThresholdGzipOutputStream extends OutputStream {
+        private final OutputStream target;
+        private final MultivaluedMap<String, Object> headers;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(THRESHOLD_BYTES);
+        private OutputStream output = null;
+
+        ThresholdGzipOutputStream(OutputStream target, MultivaluedMap<String, Object> headers) {
+            this.target = target;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (output != null) {
+                output.write(bytes, offset, length);
+                return;
+            }
+            buffer.write(bytes, offset, length);
+            if (buffer.size() >= THRESHOLD_BYTES) commit(true);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // A flush means the writer wants what it has so far on the wire, and it is still under the threshold.
+            if (output == null) commit(false);
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        void finish() throws IOException {
+            if (output == null) commit(false);
+            if (output instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) output).finish();
+            }
+            output.flush();
+        }
+
+        private void commit(boolean compress) throws IOException {
+            if (compress) {
+                // Nothing has reached the client yet, so the headers can still change.
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+                output = new GZIPOutputStream(target, 8192, true);
+            } else {
+                output = target;
+            }
+            buffer.writeTo(output);
+            buffer = null;
+        }
+    }
+}
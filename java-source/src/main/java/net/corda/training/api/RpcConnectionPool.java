@@ -0,0 +1,212 @@
+package net.corda.training.api;
+
+import net.corda.client.rpc.CordaRPCClient;
+import net.corda.client.rpc.CordaRPCConnection;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.utilities.NetworkHostAndPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * RPC connections for the web API, split into a read lane for vault queries and a write lane for starting flows.
+ * Each call leases a connection from its lane for as long as it runs, so a burst of slow vault queries can hold at most
+ * the read lane and never queue flow starts behind it. A call that can't get a connection within [LEASE_TIMEOUT_MILLIS]
+ * fails with [SaturatedException], which the [SaturationMapper] turns into 503 Service Unavailable.
+ *
+ * The lanes get their own [CordaRPCClient] connections when "iou.rpc.address", "iou.rpc.username" and
+ * "iou.rpc.password" are set as system properties, sized by "iou.rpc.readConnections" and "iou.rpc.writeConnections".
+ * Otherwise every slot shares the webserver's own connection, and the lanes only bound concurrency.
+ */
+public class RpcConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RpcConnectionPool.class);
+    private static final long LEASE_TIMEOUT_MILLIS = 30_000;
+    private static final int DEFAULT_READ_CONNECTIONS = 4;
+    private static final int DEFAULT_WRITE_CONNECTIONS = 2;
+
+    /**
+     * Thrown when every connection in a lane stayed busy for the whole lease timeout.
+     */
+    public static class SaturatedException extends RuntimeException {
+        SaturatedException(String lane) {
+            super("All " + lane + " RPC connections are busy, try again later.");
+        }
+    }
+
+    /**
+     * Maps [SaturatedException] to 503 so clients know to back off.
+     */
+    @Provider
+    public static class SaturationMapper implements ExceptionMapper<SaturatedException> {
+        @Override
+        public Response toResponse(SaturatedException exception) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", 1)
+                    .entity(exception.getMessage())
+                    .build();
+        }
+    }
+
+    private static class Lane {
+        private final String name;
+        private final BlockingQueue<CordaRPCOps> idle;
+        private final int size;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicLong leases = new AtomicLong();
+        private final AtomicLong contendedLeases = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        Lane(String name, List<CordaRPCOps> connections) {
+            this.name = name;
+            this.size = connections.size();
+            this.idle = new ArrayBlockingQueue<>(size, false, connections);
+        }
+
+        <T> T call(Function<CordaRPCOps, T> call) {
+            CordaRPCOps connection = idle.poll();
+            if (connection == null) {
+                contendedLeases.incrementAndGet();
+                waiting.incrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    connection = idle.poll(LEASE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SaturatedException(name);
+                } finally {
+                    waiting.decrementAndGet();
+                    waitNanos.addAndGet(System.nanoTime() - start);
+                }
+                if (connection == null) {
+                    timeouts.incrementAndGet();
+                    throw new SaturatedException(name);
+                }
+            }
+            leases.incrementAndGet();
+            try {
+                return call.apply(connection);
+            } finally {
+                idle.offer(connection);
+            }
+        }
+
+        Map<String, Object> getMetrics() {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            int inUse = size - idle.size();
+            metrics.put("connections", size);
+            metrics.put("inUse", inUse);
+            metrics.put("waiting", waiting.get());
+            metrics.put("utilisation", size == 0 ? 0 : (double) inUse / size);
+            metrics.put("leases", leases.get());
+            metrics.put("contendedLeases", contendedLeases.get());
+            metrics.put("totalWaitMillis", TimeUnit.NANOSECONDS.toMillis(waitNanos.get()));
+            metrics.put("timeouts", timeouts.get());
+            return metrics;
+        }
+    }
+
+    private final Lane read;
+    private final Lane write;
+    private final List<CordaRPCConnection> connections = new ArrayList<>();
+
+    /**
+     * Builds the pool from the system properties described above, falling back to [shared].
+     */
+    public static RpcConnectionPool fromSystemProperties(CordaRPCOps shared) {
+        int readConnections = Integer.getInteger("iou.rpc.readConnections", DEFAULT_READ_CONNECTIONS);
+        int writeConnections = Integer.getInteger("iou.rpc.writeConnections", DEFAULT_WRITE_CONNECTIONS);
+        String address = System.getProperty("iou.rpc.address");
+        String username = System.getProperty("iou.rpc.username");
+        String password = System.getProperty("iou.rpc.password");
+        if (address == null || username == null || password == null) {
+            return new RpcConnectionPool(shared, readConnections, writeConnections);
+        }
+        return new RpcConnectionPool(NetworkHostAndPort.parse(address), username, password, readConnections, writeConnections);
+    }
+
+    /**
+     * Lanes whose slots all share one connection.
+     */
+    public RpcConnectionPool(CordaRPCOps shared, int readConnections, int writeConnections) {
+        this.read = new Lane("read", nCopies(shared, readConnections));
+        this.write = new Lane("write", nCopies(shared, writeConnections));
+    }
+
+    /**
+     * Lanes with a connection of their own per slot.
+     */
+    public RpcConnectionPool(NetworkHostAndPort address, String username, String password, int readConnections, int writeConnections) {
+        this.read = new Lane("read", connect(address, username, password, readConnections));
+        this.write = new Lane("write", connect(address, username, password, writeConnections));
+        logger.info("Opened {} read and {} write RPC connections to {}.", readConnections, writeConnections, address);
+    }
+
+    /**
+     * Runs a vault query or other read on a read connection.
+     */
+    public <T> T read(Function<CordaRPCOps, T> call) {
+        return read.call(call);
+    }
+
+    /**
+     * Starts a flow or makes another change on a write connection.
+     */
+    public <T> T write(Function<CordaRPCOps, T> call) {
+        return write.call(call);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("read", read.getMetrics());
+        metrics.put("write", write.getMetrics());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        connections.forEach(connection -> {
+            try {
+                connection.notifyServerAndClose();
+            } catch (RuntimeException e) {
+                connection.forceClose();
+            }
+        });
+        connections.clear();
+    }
+
+    private List<CordaRPCOps> connect(NetworkHostAndPort address, String username, String password, int count) {
+        requirePositive(count);
+        List<CordaRPCOps> proxies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CordaRPCConnection connection = new CordaRPCClient(address).start(username, password);
+            connections.add(connection);
+            proxies.add(connection.getProxy());
+        }
+        return proxies;
+    }
+
+    private static List<CordaRPCOps> nCopies(CordaRPCOps shared, int count) {
+        requirePositive(count);
+        List<CordaRPCOps> proxies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) proxies.add(shared);
+        return proxies;
+    }
+
+    private static void requirePositive(int count) {
+        if (count < 1) throw new IllegalArgumentException("Every RPC lane needs at least one connection.");
+    }
+}
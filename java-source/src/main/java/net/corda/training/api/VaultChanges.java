@@ -0,0 +1,102 @@
+package net.corda.training.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.QueryCriteriaUtils.Builder;
+import net.corda.core.node.services.vault.Sort;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+
+/**
+ * The states of one type that were recorded or consumed in a window of time, for clients that keep their own copy of
+ * the vault in step without re-reading it.
+ * The window runs from the caller's "since" to the node's clock less [SETTLE_WINDOW]. States are stamped with their
+ * recorded time before the transaction commits, so the most recent moments are left for the next call rather than
+ * risk skipping a state that becomes visible late. The end of the window is returned as "nextSince". Both ends are
+ * inclusive, so a state exactly on a boundary may be returned twice; clients should key changes by ref.
+ */
+public class VaultChanges {
+    private static final Duration SETTLE_WINDOW = Duration.ofSeconds(5);
+
+    private VaultChanges() {
+    }
+
+    /**
+     * Parses "since" as either an ISO-8601 instant or milliseconds since the epoch.
+     */
+    public static Instant parseSince(String since) {
+        try {
+            return since.chars().allMatch(Character::isDigit) ? Instant.ofEpochMilli(Long.parseLong(since)) : Instant.parse(since);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("since must be an ISO-8601 instant or milliseconds since the epoch.");
+        }
+    }
+
+    /**
+     * Streams {"since", "nextSince", "produced": [...], "consumed": [...]}, with each state passed through [projection].
+     * Produced states include any already consumed again within the window.
+     *
+     * The states are written one vault page at a time, as [VaultStreamingOutput] writes them, so an old "since" costs
+     * the webserver one page of memory rather than every change since then. Unlike a plain stream the pages can't
+     * shift: the window is closed before the first page is read, and neither a state's recorded time nor its consumed
+     * time changes once set.
+     */
+    public static <T extends ContractState> StreamingOutput since(RpcConnectionPool rpcPool, ObjectMapper mapper,
+                                                                  Class<T> contractStateType, Instant since,
+                                                                  Function<StateAndRef<T>, ?> projection) {
+        Instant until = rpcPool.read(CordaRPCOps::currentNodeTime).minus(SETTLE_WINDOW);
+        boolean empty = !until.isAfter(since);
+        return output -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+                generator.writeStartObject();
+                generator.writeStringField("since", since.toString());
+                generator.writeStringField("nextSince", (empty ? since : until).toString());
+                generator.writeArrayFieldStart("produced");
+                if (!empty) {
+                    writeAll(generator, rpcPool, contractStateType, new QueryCriteria.VaultQueryCriteria(
+                            Vault.StateStatus.ALL, null, null, null, null,
+                            new QueryCriteria.TimeCondition(QueryCriteria.TimeInstantType.RECORDED, Builder.between(since, until))),
+                            "recordedTime", projection);
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("consumed");
+                if (!empty) {
+                    writeAll(generator, rpcPool, contractStateType, new QueryCriteria.VaultQueryCriteria(
+                            Vault.StateStatus.CONSUMED, null, null, null, null,
+                            new QueryCriteria.TimeCondition(QueryCriteria.TimeInstantType.CONSUMED, Builder.between(since, until))),
+                            "consumedTime", projection);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    private static <T extends ContractState> void writeAll(JsonGenerator generator, RpcConnectionPool rpcPool,
+                                                           Class<T> contractStateType, QueryCriteria criteria, String sort,
+                                                           Function<StateAndRef<T>, ?> projection) throws IOException {
+        PageRequest pageRequest = new PageRequest(null, PageRequest.MAX_PAGE_SIZE, sort);
+        Sort vaultSort = pageRequest.toSort(null);
+        while (true) {
+            // Each page leases a read connection only while it is fetched, not while it is written to a slow client.
+            PageRequest current = pageRequest;
+            Vault.Page<T> page = rpcPool.read(rpcOps -> rpcOps.vaultQueryBy(criteria, current.toPageSpecification(), vaultSort, contractStateType));
+            for (StateAndRef<T> state : page.getStates()) {
+                generator.writeObject(projection.apply(state));
+            }
+            generator.flush();
+            if (page.getStates().isEmpty() || !pageRequest.hasNext(page.getTotalStatesAvailable())) break;
+            pageRequest = pageRequest.next();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package net.corda.training.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.node.services.Vault;
+import net.corda.training.state.IOUState;
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes IOU and cash changes to any number of browsers as Server-Sent Events.
+ * Events are driven by the feeds the [IOUReadModel] and [CashBalanceCache] already hold, so every open dashboard shares
+ * the same two RPC subscriptions. Each change is serialised once and the same text is queued for every client. Each
+ * client has its own queue of at most [MAX_QUEUED_EVENTS] events, written out by its own writer while it has any, so a
+ * slow client only delays itself: queuing never blocks the RPC feed or the other clients. A client that falls so far
+ * behind that its queue fills up is disconnected, and can reconnect for a fresh snapshot. A client whose connection
+ * has gone is dropped on the next write; a comment is sent every [KEEP_ALIVE_SECONDS] so idle connections are noticed
+ * too.
+ *
+ * Events:
+ * - "reset": reload the IOUs and balances from scratch. Sent on connect and whenever the IOU feed resyncs.
+ * - "iou": {"consumed": [StateRef], "produced": [StateAndRef]} from one vault update.
+ * - "cash": the node's current cash balances.
+ *
+ * Clients are usually Jersey [ChunkedOutput]s from [subscribe()], but any [Client] can be attached, so a server that
+ * isn't hosted by Jersey can share the stream.
+ */
+public class VaultEventStream implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(VaultEventStream.class);
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final long RETRY_MILLIS = 5000;
+    private static final int MAX_QUEUED_EVENTS = 256;
+
+    /**
+     * One open event stream. Writes come from one thread at a time, one event at a time.
+     */
+    public interface Client {
+        boolean isClosed();
+
+        void write(String text) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private final ObjectMapper mapper;
+    private final Set<Subscriber> clients = new CopyOnWriteArraySet<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vault-event-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger writerCount = new AtomicInteger();
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "vault-event-stream-writer-" + writerCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VaultEventStream(ObjectMapper mapper, IOUReadModel readModel, CashBalanceCache cashBalanceCache) {
+        this.mapper = mapper;
+        readModel.addListener(new IOUReadModel.Listener() {
+            @Override
+            public void onUpdate(Vault.Update<IOUState> update) {
+                publish("iou", toDelta(update));
+            }
+
+            @Override
+            public void onResync() {
+                publish("reset", Collections.emptyMap());
+            }
+        });
+        cashBalanceCache.addListener(balances -> publish("cash", balances));
+        executor.scheduleWithFixedDelay(() -> broadcast(": keep-alive\n\n"), KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a new event stream. The client is first told to load a snapshot, then receives every change after it.
+     */
+    public ChunkedOutput<String> subscribe() {
+        ChunkedOutput<String> output = new ChunkedOutput<>(String.class);
+        subscribe(new Client() {
+            @Override
+            public boolean isClosed() {
+                return output.isClosed();
+            }
+
+            @Override
+            public void write(String text) throws IOException {
+                output.write(text);
+            }
+
+            @Override
+            public void close() throws IOException {
+                output.close();
+            }
+        });
+        return output;
+    }
+
+    /**
+     * Attaches a client of any other kind, on the same terms as [subscribe()].
+     */
+    public void subscribe(Client client) {
+        // Added before the reset is queued, so no change can fall between the snapshot the client loads and its events.
+        Subscriber subscriber = new Subscriber(client);
+        clients.add(subscriber);
+        if (!subscriber.offer("retry: " + RETRY_MILLIS + "\n" + event("reset", "{}"))) disconnect(subscriber);
+    }
+
+    public int getClients() {
+        return clients.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        writers.shutdownNow();
+        clients.forEach(this::disconnect);
+    }
+
+    private Map<String, Object> toDelta(Vault.Update<IOUState> update) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("consumed", update.getConsumed().stream().map(StateAndRef::getRef).collect(Collectors.toList()));
+        delta.put("produced", update.getProduced());
+        return delta;
+    }
+
+    private void publish(String name, Object data) {
+        if (clients.isEmpty()) return;
+        final String text;
+        try {
+            text = event(name, mapper.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialise {} event.", name, e);
+            return;
+        }
+        broadcast(text);
+    }
+
+    private void broadcast(String text) {
+        clients.forEach(subscriber -> {
+            if (!subscriber.offer(text)) disconnect(subscriber);
+        });
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (clients.remove(subscriber) && subscriber.queue.remainingCapacity() == 0) {
+            logger.info("Disconnecting an event stream client that fell {} events behind.", MAX_QUEUED_EVENTS);
+        }
+        try {
+            subscriber.client.close();
+        } catch (IOException e) {
+            // The client has already gone.
+        }
+    }
+
+    private static boolean write(Client client, String text) {
+        if (client.isClosed()) return false;
+        try {
+            client.write(text);
+            return true;
+        } catch (IOException e) {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+                // Already closed.
+            }
+            return false;
+        }
+    }
+
+    private static String event(String name, String json) {
+        return "event: " + name + "\ndata: " + json + "\n\n";
+    }
+
+    /**
+     * A client and the events queued for it. At most one writer drains the queue at a time, and only while it has
+     * events in it.
+     */
+    private final class Subscriber implements Runnable {
+        private final Client client;
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(MAX_QUEUED_EVENTS);
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+
+        Subscriber(Client client) {
+            this.client = client;
+        }
+
+        /**
+         * Queues [text] without blocking, and starts a writer if none is running. Returns false if the client has gone
+         * or its queue is full.
+         */
+        boolean offer(String text) {
+            if (client.isClosed() || !queue.offer(text)) return false;
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            do {
+                for (String text = queue.poll(); text != null; text = queue.poll()) {
+                    if (!write(client, text)) {
+                        // Left marked as draining, so nothing more is scheduled for a client that has gone.
+                        disconnect(this);
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An event queued after the last poll but before the flag was cleared has no writer yet.
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
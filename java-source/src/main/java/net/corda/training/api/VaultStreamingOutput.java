@@ -0,0 +1,74 @@
+package net.corda.training.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+/**
+ * Writes every state matching a vault query to the response as a single JSON array, one vault page at a time. Each
+ * page is flushed to the client before the next one is requested, so the webserver only ever holds one page in memory
+ * however large the vault grows.
+ *
+ * The output is not a snapshot. Pages are fetched by offset as the stream goes, as with a [PageRequest] cursor, so a
+ * state consumed mid-stream shifts the later pages back and a row is skipped, while one recorded mid-stream can shift
+ * them forward and repeat a row. Clients that need an exact copy should follow up with the changes recorded and
+ * consumed since the stream started, which the IOU and cash endpoints return for their "since" parameter.
+ */
+public class VaultStreamingOutput<T extends ContractState> implements StreamingOutput {
+    private final RpcConnectionPool rpcPool;
+    private final ObjectMapper mapper;
+    private final Class<T> contractStateType;
+    private final QueryCriteria criteria;
+    private final PageRequest firstPage;
+    private final Sort sort;
+    private final Function<StateAndRef<T>, ?> projection;
+
+    public VaultStreamingOutput(RpcConnectionPool rpcPool, ObjectMapper mapper, Class<T> contractStateType,
+                                QueryCriteria criteria, PageRequest firstPage, Sort sort) {
+        this(rpcPool, mapper, contractStateType, criteria, firstPage, sort, Function.identity());
+    }
+
+    /**
+     * As above, writing [projection] of each state instead of the state itself.
+     */
+    public VaultStreamingOutput(RpcConnectionPool rpcPool, ObjectMapper mapper, Class<T> contractStateType,
+                                QueryCriteria criteria, PageRequest firstPage, Sort sort,
+                                Function<StateAndRef<T>, ?> projection) {
+        this.rpcPool = rpcPool;
+        this.mapper = mapper;
+        this.contractStateType = contractStateType;
+        this.criteria = criteria;
+        this.firstPage = firstPage;
+        this.sort = sort;
+        this.projection = projection;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            PageRequest pageRequest = firstPage;
+            while (true) {
+                // Each page leases a read connection only while it is fetched, not while it is written to a slow client.
+                PageRequest current = pageRequest;
+                Vault.Page<T> page = rpcPool.read(rpcOps -> rpcOps.vaultQueryBy(criteria, current.toPageSpecification(), sort, contractStateType));
+                for (StateAndRef<T> state : page.getStates()) {
+                    generator.writeObject(projection.apply(state));
+                }
+                generator.flush();
+                if (page.getStates().isEmpty() || !pageRequest.hasNext(page.getTotalStatesAvailable())) break;
+                pageRequest = pageRequest.next();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
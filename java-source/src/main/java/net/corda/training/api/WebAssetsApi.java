@@ -0,0 +1,84 @@
+package net.corda.training.api;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the dashboard's scripts and stylesheets from /api/assets, as produced by the compressWebAssets build task.
+ * Every file is published under a name that includes a hash of its content, with a gzipped copy made at build time and
+ * a Brotli copy where the build had a brotli encoder, so responses can be cached by browsers for a year and are never
+ * compressed on the fly. Brotli is sent when the client rates it at least as highly as gzip. The built index.html
+ * refers to these names; a stale browser cache can therefore never serve an old script against a new page.
+ */
+@Path("assets")
+public class WebAssetsApi {
+    private static final String ASSETS_DIR = "iouWebAssets/";
+    private static final Pattern ASSET_NAME = Pattern.compile("[A-Za-z0-9_-]+\\.[0-9a-f]+\\.(js|css)");
+
+    private final Map<String, Optional<byte[]>> assets = new ConcurrentHashMap<>();
+    private final CacheControl cacheControl = new CacheControl();
+
+    public WebAssetsApi() {
+        cacheControl.setMaxAge((int) TimeUnit.DAYS.toSeconds(365));
+        cacheControl.getCacheExtension().put("immutable", null);
+    }
+
+    @GET
+    @Path("{name}")
+    public Response getAsset(@PathParam("name") String name,
+                             @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        if (!ASSET_NAME.matcher(name).matches()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        double brotliQuality = ResponseCompression.quality(acceptEncoding, "br");
+        double gzipQuality = ResponseCompression.quality(acceptEncoding, "gzip");
+        String encoding = null;
+        Optional<byte[]> body = Optional.empty();
+        if (brotliQuality > 0 && brotliQuality >= gzipQuality) {
+            body = load(name + ".br");
+            encoding = "br";
+        }
+        if (!body.isPresent() && gzipQuality > 0) {
+            body = load(name + ".gz");
+            encoding = "gzip";
+        }
+        if (!body.isPresent()) {
+            body = load(name);
+            encoding = null;
+        }
+        if (!body.isPresent()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        Response.ResponseBuilder response = Response.ok(body.get(), name.endsWith(".js") ? "application/javascript" : "text/css")
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encoding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return response.build();
+    }
+
+    private Optional<byte[]> load(String file) {
+        return assets.computeIfAbsent(file, key -> {
+            try (InputStream input = getClass().getClassLoader().getResourceAsStream(ASSETS_DIR + key)) {
+                if (input == null) return Optional.empty();
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                for (int read; (read = input.read(chunk)) != -1; ) bytes.write(chunk, 0, read);
+                return Optional.of(bytes.toByteArray());
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read web asset " + key, e);
+            }
+        });
+    }
+}
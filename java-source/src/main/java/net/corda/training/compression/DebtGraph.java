@@ -0,0 +1,198 @@
+package net.corda.training.compression;
+
+import net.corda.core.identity.Party;
+import net.corda.training.state.IOUState;
+
+import java.util.*;
+
+/**
+ * The graph of outstanding IOU debts between parties in a single currency: an edge from each borrower to each lender
+ * it owes, weighted by what it owes them across all its IOUs.
+ *
+ * Debt that goes round a cycle (A owes B owes C owes A) can be cancelled without changing any party's net position
+ * and without anyone taking on a new counterparty. [compress] cancels cycles, each by the smallest debt on it, until
+ * none are left, so every remaining obligation is a debt the borrower already owed the lender, reduced.
+ *
+ * Debts that merely pass through a party (A owes B owes C, with no cycle) are left as they are: replacing them with A
+ * owing C would be novation, not compression. Which cycles are cancelled first depends on the order the IOUs were
+ * added in, so the result is deterministic for a given order but is not necessarily the fewest obligations possible.
+ */
+public class DebtGraph {
+
+    /**
+     * A residual debt of [quantity] owed by [borrower] to [lender].
+     */
+    public static class Obligation {
+        private final Party lender;
+        private final Party borrower;
+        private final long quantity;
+
+        public Obligation(Party lender, Party borrower, long quantity) {
+            this.lender = lender;
+            this.borrower = borrower;
+            this.quantity = quantity;
+        }
+
+        public Party getLender() {
+            return lender;
+        }
+
+        public Party getBorrower() {
+            return borrower;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Obligation that = (Obligation) o;
+            return quantity == that.quantity && Objects.equals(lender, that.lender) && Objects.equals(borrower, that.borrower);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lender, borrower, quantity);
+        }
+
+        @Override
+        public String toString() {
+            return borrower.getName() + " owes " + lender.getName() + " " + quantity;
+        }
+    }
+
+    private final Currency currency;
+    private final Map<Party, Long> netPositions = new LinkedHashMap<>();
+    private final Map<Party, Map<Party, Long>> owed = new LinkedHashMap<>();
+    private long totalOutstanding = 0;
+
+    public DebtGraph(Currency currency) {
+        this.currency = currency;
+    }
+
+    public static DebtGraph of(Currency currency, Iterable<IOUState> ious) {
+        DebtGraph graph = new DebtGraph(currency);
+        ious.forEach(graph::add);
+        return graph;
+    }
+
+    public void add(IOUState iou) {
+        if (!iou.getAmount().getToken().equals(currency)) {
+            throw new IllegalArgumentException("All IOUs in the graph must be in " + currency + ".");
+        }
+        long outstanding = iou.getAmount().getQuantity() - iou.getPaid().getQuantity();
+        netPositions.merge(iou.getLender(), outstanding, Long::sum);
+        netPositions.merge(iou.getBorrower(), -outstanding, Long::sum);
+        owed.computeIfAbsent(iou.getBorrower(), borrower -> new LinkedHashMap<>()).merge(iou.getLender(), outstanding, Long::sum);
+        totalOutstanding += outstanding;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * What each party is owed overall (positive) or owes overall (negative).
+     */
+    public Map<Party, Long> getNetPositions() {
+        return Collections.unmodifiableMap(netPositions);
+    }
+
+    public long getTotalOutstanding() {
+        return totalOutstanding;
+    }
+
+    /**
+     * The obligations left once every cycle of debt has been cancelled. Every party's net position is unchanged, and
+     * each obligation is between a borrower and a lender it already owed, for no more than it owed them.
+     *
+     * One depth-first search walks the whole graph, on an explicit stack so its depth is not bounded by the flow
+     * fiber's stack. Reaching a party already on the stack closes a cycle, which is cancelled at once. The stack is
+     * then unwound only to the first debt on the cycle that was paid off, and the search carries on from there. Each
+     * party remembers how far through its debts the search has got, and a party whose debts have all been searched
+     * can reach no cycle, so no debt is looked at twice. For P parties and D debts the search costs O(P + D), plus
+     * the length of each cancelled cycle. Every cancellation pays off at least one debt, so there are at most D
+     * cycles of at most P debts each.
+     */
+    public List<Obligation> compress() {
+        Map<Party, Map<Party, Long>> remaining = new LinkedHashMap<>();
+        Map<Party, List<Party>> lendersOf = new HashMap<>();
+        owed.forEach((borrower, lenders) -> {
+            Map<Party, Long> outstanding = new LinkedHashMap<>(lenders);
+            outstanding.values().removeIf(quantity -> quantity <= 0);
+            remaining.put(borrower, outstanding);
+            lendersOf.put(borrower, new ArrayList<>(outstanding.keySet()));
+        });
+
+        Map<Party, Integer> searched = new HashMap<>();
+        Set<Party> finished = new HashSet<>();
+        List<Party> stack = new ArrayList<>();
+        Map<Party, Integer> positionOnStack = new HashMap<>();
+        for (Party root : remaining.keySet()) {
+            if (finished.contains(root)) continue;
+            stack.add(root);
+            positionOnStack.put(root, 0);
+            while (!stack.isEmpty()) {
+                Party borrower = stack.get(stack.size() - 1);
+                List<Party> lenders = lendersOf.getOrDefault(borrower, Collections.emptyList());
+                int next = searched.getOrDefault(borrower, 0);
+                if (next == lenders.size()) {
+                    stack.remove(stack.size() - 1);
+                    positionOnStack.remove(borrower);
+                    finished.add(borrower);
+                    continue;
+                }
+                Party lender = lenders.get(next);
+                if (!remaining.get(borrower).containsKey(lender) || finished.contains(lender)) {
+                    searched.put(borrower, next + 1);
+                    continue;
+                }
+                Integer cycleStart = positionOnStack.get(lender);
+                if (cycleStart == null) {
+                    positionOnStack.put(lender, stack.size());
+                    stack.add(lender);
+                    continue;
+                }
+                int firstPaidOff = cancel(remaining, stack, cycleStart);
+                while (stack.size() > firstPaidOff + 1) {
+                    positionOnStack.remove(stack.remove(stack.size() - 1));
+                }
+            }
+        }
+
+        List<Obligation> obligations = new ArrayList<>();
+        remaining.forEach((borrower, lenders) -> lenders.forEach((lender, quantity) ->
+                obligations.add(new Obligation(lender, borrower, quantity))));
+        return obligations;
+    }
+
+    /**
+     * Cancels the cycle formed by the parties on [stack] from [cycleStart] to the top, each owing the next and the
+     * top owing the first, by its smallest debt. Returns the stack position of the first party whose debt along the
+     * cycle was paid off.
+     */
+    private static int cancel(Map<Party, Map<Party, Long>> remaining, List<Party> stack, int cycleStart) {
+        int top = stack.size() - 1;
+        long smallest = Long.MAX_VALUE;
+        for (int i = cycleStart; i <= top; i++) {
+            Party lender = stack.get(i == top ? cycleStart : i + 1);
+            smallest = Math.min(smallest, remaining.get(stack.get(i)).get(lender));
+        }
+        int firstPaidOff = -1;
+        for (int i = cycleStart; i <= top; i++) {
+            Map<Party, Long> lenders = remaining.get(stack.get(i));
+            Party lender = stack.get(i == top ? cycleStart : i + 1);
+            long quantity = lenders.get(lender) - smallest;
+            if (quantity == 0) {
+                lenders.remove(lender);
+                if (firstPaidOff < 0) firstPaidOff = i;
+            } else {
+                lenders.put(lender, quantity);
+            }
+        }
+        return firstPaidOff;
+    }
+}
@@ -2,16 +2,17 @@ package net.corda.training.contract;
 
 import net.corda.core.contracts.*;
 import net.corda.core.transactions.LedgerTransaction;
+import net.corda.finance.contracts.asset.Cash;
 import net.corda.training.state.IOUState;
 
 import java.security.PublicKey;
+import java.util.Currency;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import static net.corda.core.contracts.ContractsDSL.requireSingleCommand;
-import static net.corda.core.contracts.ContractsDSL.requireThat;
-
 /**
  * This is where you'll add the contract code which defines how the [IOUState] behaves. Looks at the unit tests in
  * [IOUContractTests] for instructions on how to complete the [IOUContract] class.
@@ -36,106 +37,360 @@ public class IOUContract implements Contract {
 
         class Settle extends TypeOnlyCommandData implements Commands {
         }
+
+        class Net extends TypeOnlyCommandData implements Commands {
+        }
+
+        class Compress extends TypeOnlyCommandData implements Commands {
+        }
     }
 
     /**
      * The contract code for the [IOUContract].
      * The constraints are self documenting so don't require any additional explanation.
+     *
+     * Verification runs for every transaction and its whole back-chain, so it dispatches on the command's class and
+     * walks the transaction's own lists by index rather than building filtered copies or [requireThat] lambdas on
+     * every call. Where signers must match the participants of many states, as in Issue, the participants' keys are
+     * collected in one pass and compared as sets, so the check stays linear in the size of the transaction.
      */
     @Override
     public void verify(LedgerTransaction tx) {
         // Add contract code here.
         //get commands
-        final CommandWithParties<Commands> commandWithParties = requireSingleCommand(tx.getCommands(), Commands.class);
-        final Commands commands = commandWithParties.getValue();
+        final CommandWithParties<CommandData> command = requireSingleIOUCommand(tx);
+        final CommandData value = command.getValue();
+        final List<PublicKey> signers = command.getSigners();
 
         //for this command check
-        if (commands.equals(new Commands.Issue())) {
-            requireThat(req -> {
-
-                //Task 2. As previously observed, issue transactions should not have any input state references. Therefore we must check to ensure that no input states are included in a transaction to issue an IOU.
-                req.using("No inputs should be consumed when issuing an IOU", tx.getInputStates().size() == 0);
-
-                //Task 3. Now we need to ensure that only one {@link IOUState} is issued per transaction.
-                req.using("Only one output state should be created when issuing an IOU.", tx.getOutputStates().size() == 1);
-
-                IOUState iouOutputState = tx.outputsOfType(IOUState.class).get(0);
-
-                //Task 4. Now we need to consider the properties of the {@link IOUState}. We need to ensure that an IOU should always have a positive value.
-                req.using("A newly issued IOU must have a positive amount.", iouOutputState.getAmount().getQuantity() > 0);
-
-                //Task 5. For obvious reasons, the identity of the lender and borrower must be different.
-                req.using("The lender and borrower cannot have the same identity.", iouOutputState.getLender().getOwningKey() != iouOutputState.getBorrower().getOwningKey());
+        if (value instanceof Commands.Issue) {
+            verifyIssue(tx, signers);
+        } else if (value instanceof Commands.Transfer) {
+            verifyTransfer(tx, signers);
+        } else if (value instanceof Commands.Settle) {
+            verifySettle(tx, signers);
+        } else if (value instanceof Commands.Net) {
+            verifyNet(tx, signers);
+        } else if (value instanceof Commands.Compress) {
+            verifyCompress(tx, signers);
+        }
+    }
 
-                //Task 6. The list of public keys which the commands hold should contain all of the participants defined in the {@link IOUState}.
-                Set<PublicKey> publicKeysSet = new HashSet<>();
-                tx.getCommands().get(0).getSigners().forEach(publicKey ->
-                        publicKeysSet.add(publicKey)
-                );
+    private static void verifyIssue(LedgerTransaction tx, List<PublicKey> signers) {
+        //Task 2. As previously observed, issue transactions should not have any input state references. Therefore we must check to ensure that no input states are included in a transaction to issue an IOU.
+        require("No inputs should be consumed when issuing an IOU", tx.getInputs().size() == 0);
+
+        //Task 3. Several IOUs may be issued together under one Issue command, so there must be at least one
+        //output and every output must be an {@link IOUState}.
+        final List<TransactionState<ContractState>> outputs = tx.getOutputs();
+        final int iouOutputs = countIOUOutputs(tx);
+        require("At least one output state should be created when issuing an IOU.", iouOutputs >= 1);
+        require("Only IOU output states should be created when issuing an IOU.", iouOutputs == outputs.size());
+
+        // Collected in the same single pass over the outputs, so the signers are compared with them once rather than
+        // each signer being looked for among every output.
+        Set<PublicKey> participantKeys = new HashSet<>();
+        for (int i = 0; i < outputs.size(); i++) {
+            IOUState iouOutputState = (IOUState) outputs.get(i).getData();
+            //Task 4. Now we need to consider the properties of the {@link IOUState}. We need to ensure that an IOU should always have a positive value.
+            require("A newly issued IOU must have a positive amount.", iouOutputState.getAmount().getQuantity() > 0);
+
+            //Task 5. For obvious reasons, the identity of the lender and borrower must be different.
+            PublicKey lender = iouOutputState.getLender().getOwningKey();
+            PublicKey borrower = iouOutputState.getBorrower().getOwningKey();
+            require("The lender and borrower cannot have the same identity.", !lender.equals(borrower));
+
+            participantKeys.add(lender);
+            participantKeys.add(borrower);
+        }
 
-                Set<PublicKey> participantKeysSet = new HashSet<>();
-                tx.getOutputStates().get(0).getParticipants().forEach(abstractParty ->
-                        participantKeysSet.add(abstractParty.getOwningKey())
-                );
+        //Task 6. The public keys which the command holds must be exactly the participants of the {@link IOUState}s.
+        require("Both lender and borrower together only may sign IOU issue transaction.", participantKeys.equals(new HashSet<>(signers)));
+    }
 
-                //both input tx and output state should have same participants
-                req.using("Both lender and borrower together only may sign IOU issue transaction.", publicKeysSet.size() == participantKeysSet.size() && publicKeysSet.containsAll(participantKeysSet));
+    private static void verifyTransfer(LedgerTransaction tx, List<PublicKey> signers) {
+        //Task 2. The transfer transaction should only have one input state and one output state.
+        require("An IOU transfer transaction should only consume one input state.", tx.getInputs().size() == 1);
+        require("An IOU transfer transaction should only create one output state.", tx.getOutputs().size() == 1);
+        require("Only IOUs may be transferred.", tx.getInputs().get(0).getState().getData() instanceof IOUState
+                && tx.getOutputs().get(0).getData() instanceof IOUState);
+
+        //Task 3. Add a constraint to the contract code to ensure only the lender property can change when transferring IOUs.
+        IOUState iouInputState = (IOUState) tx.getInputs().get(0).getState().getData();
+        IOUState iouOutputState = (IOUState) tx.getOutputs().get(0).getData();
+
+        //compared field by field, rather than through a copy of the output with the input's lender
+        require("Only the lender property may change.", iouOutputState.getAmount().equals(iouInputState.getAmount())
+                && iouOutputState.getBorrower().equals(iouInputState.getBorrower())
+                && iouOutputState.getPaid().equals(iouInputState.getPaid())
+                && iouOutputState.getLinearId().equals(iouInputState.getLinearId()));
+
+        //Task 4. It is fairly obvious that in a transfer IOU transaction the lender must change.
+        require("The lender property must change in a transfer.", !iouOutputState.getLender().equals(iouInputState.getLender()));
+
+        //Task 5. All the participants in a transfer IOU transaction must sign, and nobody else.
+        PublicKey borrower = iouOutputState.getBorrower().getOwningKey();
+        PublicKey oldLender = iouInputState.getLender().getOwningKey();
+        PublicKey newLender = iouOutputState.getLender().getOwningKey();
+        boolean onlyParticipantsSign = signers.contains(borrower) && signers.contains(oldLender) && signers.contains(newLender);
+        for (int i = 0; i < signers.size() && onlyParticipantsSign; i++) {
+            PublicKey signer = signers.get(i);
+            onlyParticipantsSign = signer.equals(borrower) || signer.equals(oldLender) || signer.equals(newLender);
+        }
+        require("The borrower, old lender and new lender only must sign an IOU transfer transaction", onlyParticipantsSign);
+    }
 
-                return null;
-            });
-        } else if (commands.equals(new Commands.Transfer())) {
+    /**
+     * Settling walks the inputs once to index the IOUs being settled, then the outputs once, checking each output IOU
+     * against its input and adding up the cash paid to each lender as it goes. What each lender is owed is kept in one
+     * running balance per currency: it starts at the outstanding amount of the lender's IOUs, partial settlements take
+     * back what is left outstanding and cash paid to the lender is taken off, so every balance ends at zero when the
+     * lenders are paid exactly. Nothing is built per cash state, so cost grows linearly with the number of coins.
+     */
+    private static void verifySettle(LedgerTransaction tx, List<PublicKey> signers) {
+        final List<StateAndRef<ContractState>> inputs = tx.getInputs();
+        final List<TransactionState<ContractState>> outputs = tx.getOutputs();
+
+        //Task 2. Several IOUs may be settled at once. Each is matched to its output, if any, by its [linearId].
+        Map<UniqueIdentifier, Settling> settling = new HashMap<>();
+        // What each lender is still owed, per currency.
+        Map<PublicKey, Map<Currency, Balance>> owedToLender = new HashMap<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            ContractState state = inputs.get(i).getState().getData();
+            if (!(state instanceof IOUState)) continue;
+            IOUState iouInputState = (IOUState) state;
+
+            //Task 3. There always has to be one input IOU but there might not be an output IOU.
+            require("There must be one input IOU.", settling.put(iouInputState.getLinearId(), new Settling(iouInputState)) == null);
+
+            //Task 8. Until an output IOU says otherwise, the IOU is being settled in full.
+            long outstanding = iouInputState.getAmount().getQuantity() - iouInputState.getPaid().getQuantity();
+            balance(owedToLender.computeIfAbsent(iouInputState.getLender().getOwningKey(), key -> new HashMap<>()),
+                    (Currency) iouInputState.getAmount().getToken()).amount += outstanding;
+
+            //Task 10. Both the lender and the borrower of every IOU must sign.
+            require("Both lender and borrower must sign IOU settle transaction.",
+                    signers.contains(iouInputState.getLender().getOwningKey()) && signers.contains(iouInputState.getBorrower().getOwningKey()));
+        }
+        require("At least one IOU must be settled.", !settling.isEmpty() || countIOUOutputs(tx) > 0);
+
+        boolean paidToLender = false;
+        for (int i = 0; i < outputs.size(); i++) {
+            ContractState state = outputs.get(i).getData();
+            if (state instanceof IOUState) {
+                IOUState iouOutputState = (IOUState) state;
+                Settling match = settling.get(iouOutputState.getLinearId());
+                require("There must be one input IOU.", match != null);
+                require("There must be no more than one output IOU per input IOU.", !match.hasOutput);
+                match.hasOutput = true;
+
+                IOUState iouInputState = match.input;
+                long outstanding = iouInputState.getAmount().getQuantity() - iouInputState.getPaid().getQuantity();
+                long settled = iouOutputState.getPaid().getQuantity() - iouInputState.getPaid().getQuantity();
+                //Task 8. Only a partially settled IOU stays on the ledger.
+                require("There must be no output IOU as it has been fully settled.", settled < outstanding);
+                require("The amount settled must be positive.", settled > 0);
+                //Task 9. Only the paid property may change when settling.
+                require("Only the paid property may change.", iouOutputState.getAmount().equals(iouInputState.getAmount())
+                        && iouOutputState.getLender().equals(iouInputState.getLender())
+                        && iouOutputState.getBorrower().equals(iouInputState.getBorrower())
+                        && iouOutputState.getPaid().getToken().equals(iouInputState.getAmount().getToken()));
+
+                owedToLender.get(iouInputState.getLender().getOwningKey())
+                        .get((Currency) iouInputState.getAmount().getToken()).amount -= outstanding - settled;
+            } else if (state instanceof Cash.State) {
+                //Task 4 & 5. Cash paid to a lender counts against what they are owed. Cash going anywhere else, such
+                // as change back to the borrower, is the [Cash] contract's concern.
+                Cash.State cash = (Cash.State) state;
+                Map<Currency, Balance> owed = owedToLender.get(cash.getOwner().getOwningKey());
+                if (owed == null) continue;
+                // Cash in a currency the lender isn't owed leaves a negative balance behind.
+                balance(owed, cash.getAmount().getToken().getProduct()).amount -= cash.getAmount().getQuantity();
+                paidToLender = true;
+            }
+        }
+        require("There must be output cash paid to the lender.", paidToLender);
 
-            requireThat(req -> {
+        //Task 6 & 7. Every lender must be paid exactly what is settled, in the currency of the IOUs.
+        for (Map<Currency, Balance> owed : owedToLender.values()) {
+            for (Balance balance : owed.values()) {
+                require("The cash paid to each lender must equal the amount settled.", balance.amount == 0);
+            }
+        }
+    }
 
-                //Task 2. The transfer transaction should only have one input state and one output state.
-                req.using("An IOU transfer transaction should only consume one input state.", tx.getInputStates().size() == 1);
-                req.using("An IOU transfer transaction should only create one output state.", tx.getOutputStates().size() == 1);
+    /**
+     * An IOU being settled, and whether its partially settled output has been seen.
+     */
+    private static final class Settling {
+        final IOUState input;
+        boolean hasOutput = false;
 
-                //Task 3. Add a constraint to the contract code to ensure only the lender property can change when transferring IOUs.
-                IOUState iouInputState = tx.inputsOfType(IOUState.class).get(0);
-                //can be also written as tx.getInputStates().get(0)
-                IOUState iouOutputState = tx.outputsOfType(IOUState.class).get(0);
-                IOUState iouOutputStateToBeChecked = iouOutputState.withNewLender(iouInputState.getLender());
+        Settling(IOUState input) {
+            this.input = input;
+        }
+    }
 
-                //equals to be overridden in iou contract for this to work else have to check each field
-                req.using("Only the lender property may change.", iouOutputStateToBeChecked.equals(iouInputState));
+    /**
+     * A running amount, so a lender's balance can be updated in place as each cash state is seen.
+     */
+    private static final class Balance {
+        long amount = 0;
+    }
 
-                //Task 4. It is fairly obvious that in a transfer IOU transaction the lender must change.
-                req.using("The lender property must change in a transfer.", !iouOutputState.getLender().equals(iouInputState.getLender()));
+    private static Balance balance(Map<Currency, Balance> balances, Currency currency) {
+        Balance balance = balances.get(currency);
+        if (balance == null) {
+            balance = new Balance();
+            balances.put(currency, balance);
+        }
+        return balance;
+    }
 
-                //Task 5. All the participants in a transfer IOU transaction must sign.
-                Set<PublicKey> publicKeysSet = new HashSet<>();
-                tx.getCommands().get(0).getSigners().forEach(publicKey ->
-                        publicKeysSet.add(publicKey)
-                );
+    private static void verifyNet(LedgerTransaction tx, List<PublicKey> signers) {
+        // Netting consumes offsetting IOUs between two parties and leaves at most one residual IOU, so no cash moves.
+        final List<StateAndRef<ContractState>> inputs = tx.getInputs();
+        final List<TransactionState<ContractState>> outputs = tx.getOutputs();
+        require("Only IOUs may be netted.", countIOUInputs(tx) == inputs.size() && countIOUOutputs(tx) == outputs.size());
+        require("At least two IOUs must be netted.", inputs.size() >= 2);
+        require("Netting must leave at most one residual IOU.", outputs.size() <= 1);
+
+        IOUState first = (IOUState) inputs.get(0).getState().getData();
+        PublicKey firstLender = first.getLender().getOwningKey();
+        PublicKey firstBorrower = first.getBorrower().getOwningKey();
+        Object currency = first.getAmount().getToken();
+
+        // Net position of the first IOU's lender against its borrower.
+        long net = 0;
+        boolean offsetting = false;
+        for (int i = 0; i < inputs.size(); i++) {
+            IOUState iouInputState = (IOUState) inputs.get(i).getState().getData();
+            require("All netted IOUs must be in the same currency.", iouInputState.getAmount().getToken().equals(currency));
+            long outstanding = iouInputState.getAmount().getQuantity() - iouInputState.getPaid().getQuantity();
+            PublicKey lender = iouInputState.getLender().getOwningKey();
+            PublicKey borrower = iouInputState.getBorrower().getOwningKey();
+            if (lender.equals(firstLender) && borrower.equals(firstBorrower)) {
+                net += outstanding;
+            } else {
+                require("All netted IOUs must be between the same two parties.", lender.equals(firstBorrower) && borrower.equals(firstLender));
+                net -= outstanding;
+                offsetting = true;
+            }
+        }
+        require("There must be IOUs in both directions to net.", offsetting);
+
+        if (net == 0) {
+            require("There must be no residual IOU when the IOUs cancel out.", outputs.isEmpty());
+        } else {
+            require("There must be a residual IOU for the net amount.", outputs.size() == 1);
+            IOUState residual = (IOUState) outputs.get(0).getData();
+            PublicKey expectedLender = net > 0 ? firstLender : firstBorrower;
+            PublicKey expectedBorrower = net > 0 ? firstBorrower : firstLender;
+            require("The residual IOU must be owed by the net debtor to the net creditor.",
+                    residual.getLender().getOwningKey().equals(expectedLender) && residual.getBorrower().getOwningKey().equals(expectedBorrower));
+            require("The residual IOU must be for the net amount.",
+                    residual.getAmount().getToken().equals(currency) && residual.getAmount().getQuantity() == Math.abs(net));
+            require("The residual IOU must not have been paid.", residual.getPaid().getQuantity() == 0);
+        }
 
-                Set<PublicKey> participantKeysSet = new HashSet<>();
-                iouOutputState.getParticipants().forEach(abstractParty ->
-                        participantKeysSet.add(abstractParty.getOwningKey())
-                );
-                //add new lender signature
-                participantKeysSet.add(iouInputState.getLender().getOwningKey());
+        // Both parties must sign.
+        require("Both parties must sign an IOU net transaction.", signers.contains(firstLender) && signers.contains(firstBorrower));
+    }
 
-                //output state should have same participants as command
-                req.using("The borrower, old lender and new lender only must sign an IOU transfer transaction", publicKeysSet.size() == participantKeysSet.size() && publicKeysSet.containsAll(participantKeysSet));
+    private static void verifyCompress(LedgerTransaction tx, List<PublicKey> signers) {
+        // Compression cancels cycles of debt between many parties, so no cash moves: every party keeps the same
+        // net position, and each compressed IOU reduces a debt its borrower already owed its lender.
+        final List<StateAndRef<ContractState>> inputs = tx.getInputs();
+        final List<TransactionState<ContractState>> outputs = tx.getOutputs();
+        require("Only IOUs may be compressed.", countIOUInputs(tx) == inputs.size() && countIOUOutputs(tx) == outputs.size());
+        require("At least two IOUs must be compressed.", inputs.size() >= 2);
+
+        // The positions are keyed by party and the debts by borrower then lender, so the branch builds one map per
+        // party rather than one per IOU.
+        Object currency = ((IOUState) inputs.get(0).getState().getData()).getAmount().getToken();
+        Map<PublicKey, Long> inputPositions = new HashMap<>();
+        Map<PublicKey, Map<PublicKey, Long>> owed = new HashMap<>();
+        long inputTotal = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            IOUState iouInputState = (IOUState) inputs.get(i).getState().getData();
+            require("All compressed IOUs must be in the same currency.", iouInputState.getAmount().getToken().equals(currency));
+            long outstanding = iouInputState.getAmount().getQuantity() - iouInputState.getPaid().getQuantity();
+            inputPositions.merge(iouInputState.getLender().getOwningKey(), outstanding, Long::sum);
+            inputPositions.merge(iouInputState.getBorrower().getOwningKey(), -outstanding, Long::sum);
+            owed.computeIfAbsent(iouInputState.getBorrower().getOwningKey(), borrower -> new HashMap<>())
+                    .merge(iouInputState.getLender().getOwningKey(), outstanding, Long::sum);
+            inputTotal += outstanding;
+
+            // Every party to the original IOUs must sign.
+            require("Every party to the compressed IOUs must sign.",
+                    signers.contains(iouInputState.getLender().getOwningKey()) && signers.contains(iouInputState.getBorrower().getOwningKey()));
+        }
 
-                return null;
-            });
+        Map<PublicKey, Long> outputPositions = new HashMap<>();
+        long outputTotal = 0;
+        for (int i = 0; i < outputs.size(); i++) {
+            IOUState iouOutputState = (IOUState) outputs.get(i).getData();
+            require("All compressed IOUs must be in the same currency.", iouOutputState.getAmount().getToken().equals(currency));
+            require("A compressed IOU must have a positive amount.", iouOutputState.getAmount().getQuantity() > 0);
+            require("A compressed IOU must not have been paid.", iouOutputState.getPaid().getQuantity() == 0);
+            PublicKey lender = iouOutputState.getLender().getOwningKey();
+            PublicKey borrower = iouOutputState.getBorrower().getOwningKey();
+            require("The lender and borrower cannot have the same identity.", !lender.equals(borrower));
+            Map<PublicKey, Long> owedByBorrower = owed.get(borrower);
+            Long stillOwed = owedByBorrower == null ? null : owedByBorrower.get(lender);
+            require("A compressed IOU may only reduce a debt the borrower already owed the lender.",
+                    stillOwed != null && stillOwed >= iouOutputState.getAmount().getQuantity());
+            owedByBorrower.put(lender, stillOwed - iouOutputState.getAmount().getQuantity());
+            outputPositions.merge(lender, iouOutputState.getAmount().getQuantity(), Long::sum);
+            outputPositions.merge(borrower, -iouOutputState.getAmount().getQuantity(), Long::sum);
+            outputTotal += iouOutputState.getAmount().getQuantity();
+        }
 
-        } else if (commands.equals(new Commands.Settle())) {
+        inputPositions.values().removeIf(position -> position == 0);
+        outputPositions.values().removeIf(position -> position == 0);
+        require("Every party's net position must be unchanged.", inputPositions.equals(outputPositions));
+        require("Compression must reduce the total outstanding.", outputTotal < inputTotal);
+    }
 
-            requireThat(req -> {
+    /**
+     * The transaction's single [Commands] command, as [requireSingleCommand] finds it but without filtering the
+     * command list into a new one first.
+     */
+    private static CommandWithParties<CommandData> requireSingleIOUCommand(LedgerTransaction tx) {
+        final List<CommandWithParties<CommandData>> commands = tx.getCommands();
+        CommandWithParties<CommandData> found = null;
+        for (int i = 0; i < commands.size(); i++) {
+            CommandWithParties<CommandData> command = commands.get(i);
+            if (!(command.getValue() instanceof Commands)) continue;
+            if (found != null) throw new IllegalArgumentException("Only one " + Commands.class.getCanonicalName() + " command is allowed.");
+            found = command;
+        }
+        if (found == null) throw new IllegalStateException("Required " + Commands.class.getCanonicalName() + " command");
+        return found;
+    }
 
-                //Task 2.
-                //     * For now, we only want to settle one IOU at once. We can use the [TransactionForContract.groupStates] function
-                //     * to group the IOUs by their [linearId] property. We want to make sure there is only one group of input and output
-                //     * IOUs.
-                List<LedgerTransaction.InOutGroup<IOUState, UniqueIdentifier>> inOutGroupList = tx.groupStates(IOUState.class, IOUState::getLinearId);
-                req.using("List has more than one element.", inOutGroupList.size() == 1);
+    /**
+     * Equivalent to [requireThat]'s "using", with the same message, but without a lambda per call.
+     */
+    private static void require(String message, boolean condition) {
+        if (!condition) throw new IllegalArgumentException("Failed requirement: " + message);
+    }
 
-                return null;
-            });
+    private static int countIOUInputs(LedgerTransaction tx) {
+        final List<StateAndRef<ContractState>> inputs = tx.getInputs();
+        int count = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            if (inputs.get(i).getState().getData() instanceof IOUState) count++;
+        }
+        return count;
+    }
 
+    private static int countIOUOutputs(LedgerTransaction tx) {
+        final List<TransactionState<ContractState>> outputs = tx.getOutputs();
+        int count = 0;
+        for (int i = 0; i < outputs.size(); i++) {
+            if (outputs.get(i).getData() instanceof IOUState) count++;
         }
+        return count;
     }
-}
\ No newline at end of file
+}
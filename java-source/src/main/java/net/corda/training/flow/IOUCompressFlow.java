@@ -0,0 +1,193 @@
+package net.corda.training.flow;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.Amount;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.flows.*;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import net.corda.training.compression.DebtGraph;
+import net.corda.training.contract.IOUContract;
+import net.corda.training.state.IOUState;
+
+import java.security.PublicKey;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static net.corda.core.contracts.ContractsDSL.requireThat;
+
+/**
+ * This is the flow which compresses the IOU graph between a group of parties in one currency.
+ * The initiator asks every other party for the IOUs it holds with the rest of the group, builds the [DebtGraph] from
+ * them and replaces them all in one transaction with what is left once every cycle of debt, such as A owes B owes C
+ * owes A, has been cancelled. No cash moves, every party's net position is unchanged and nobody takes on a new
+ * counterparty. Each member recomputes the result from the transaction's inputs before it signs.
+ * Every party in the group signs, notarisation (if required) and commitment to the ledger is handled by the
+ * [FinalityFlow]. The flow returns the [SignedTransaction] that was committed to the ledger.
+ */
+public class IOUCompressFlow {
+
+    @InitiatingFlow
+    @StartableByRPC
+    public static class InitiatorFlow extends FlowLogic<SignedTransaction> {
+
+        private final List<Party> parties;
+        private final Currency currency;
+
+        public InitiatorFlow(List<Party> parties, Currency currency) {
+            this.parties = parties;
+            this.currency = currency;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+            final Party me = getOurIdentity();
+            final Set<Party> group = new LinkedHashSet<>(parties);
+            group.add(me);
+            if (group.size() < 2) {
+                throw new IllegalArgumentException("IOUs can only be compressed between two or more parties.");
+            }
+            final List<Party> members = new ArrayList<>(group);
+
+            // Gather the IOUs every member holds with the rest of the group, de-duplicated by state reference.
+            final Map<StateRef, StateAndRef<IOUState>> ious = new LinkedHashMap<>();
+            IOUQueries.findIOUsAmong(getServiceHub(), group, currency).forEach(iou -> ious.put(iou.getRef(), iou));
+            final List<FlowSession> sessions = new ArrayList<>();
+            for (Party member : members) {
+                if (member.equals(me)) continue;
+                FlowSession session = initiateFlow(member);
+                session.send(members);
+                session.send(currency);
+                List<StateAndRef<IOUState>> theirs = subFlow(new ReceiveStateAndRefFlow<>(session));
+                for (StateAndRef<IOUState> iou : theirs) {
+                    IOUState state = iou.getState().getData();
+                    if (!state.getAmount().getToken().equals(currency) || !group.contains(state.getLender()) || !group.contains(state.getBorrower())) {
+                        throw new FlowException(member + " sent an IOU outside the compression group.");
+                    }
+                    ious.put(iou.getRef(), iou);
+                }
+                sessions.add(session);
+            }
+
+            final DebtGraph graph = DebtGraph.of(currency, ious.values().stream()
+                    .map(iou -> iou.getState().getData()).collect(Collectors.toList()));
+            final List<DebtGraph.Obligation> obligations = graph.compress();
+            final long compressedTotal = obligations.stream().mapToLong(DebtGraph.Obligation::getQuantity).sum();
+            final Set<Party> notaries = ious.values().stream().map(iou -> iou.getState().getNotary()).collect(Collectors.toSet());
+
+            final boolean proceed = ious.size() >= 2 && compressedTotal < graph.getTotalOutstanding() && notaries.size() == 1;
+            for (FlowSession session : sessions) {
+                session.send(proceed);
+            }
+            if (!proceed) {
+                throw new FlowException(notaries.size() > 1
+                        ? "The IOUs are not all held by one notary."
+                        : "There is nothing to compress between these parties.");
+            }
+
+            final TransactionBuilder builder = new TransactionBuilder(notaries.iterator().next());
+            ious.values().forEach(builder::addInputState);
+            for (DebtGraph.Obligation obligation : obligations) {
+                builder.addOutputState(new IOUState(new Amount<>(obligation.getQuantity(), currency),
+                        obligation.getLender(), obligation.getBorrower()), IOUContract.IOU_CONTRACT_ID);
+            }
+            final List<PublicKey> signers = members.stream().map(Party::getOwningKey).collect(Collectors.toList());
+            builder.addCommand(new IOUContract.Commands.Compress(), signers);
+
+            builder.verify(getServiceHub());
+            final SignedTransaction ptx = getServiceHub().signInitialTransaction(builder);
+            final SignedTransaction stx = subFlow(new CollectSignaturesFlow(ptx, sessions));
+            return subFlow(new FinalityFlow(stx, sessions));
+        }
+    }
+
+    /**
+     * This is the flow which contributes a member's IOUs to a compression and signs the result.
+     * The signing is handled by the [SignTransactionFlow].
+     */
+    @InitiatedBy(IOUCompressFlow.InitiatorFlow.class)
+    public static class Responder extends FlowLogic<SignedTransaction> {
+
+        private final FlowSession otherPartyFlow;
+
+        public Responder(FlowSession otherPartyFlow) {
+            this.otherPartyFlow = otherPartyFlow;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+            final Party me = getOurIdentity();
+            final List<Party> members = otherPartyFlow.receive(List.class).unwrap(data -> {
+                final List<Party> group = new ArrayList<>();
+                for (Object member : data) {
+                    if (!(member instanceof Party)) {
+                        throw new IllegalArgumentException("The compression group must be a list of parties.");
+                    }
+                    group.add((Party) member);
+                }
+                if (!group.contains(me)) {
+                    throw new IllegalArgumentException("We are not a member of this compression group.");
+                }
+                return group;
+            });
+            final Currency currency = otherPartyFlow.receive(Currency.class).unwrap(data -> data);
+
+            final List<StateAndRef<IOUState>> ours = IOUQueries.findIOUsAmong(getServiceHub(), members, currency);
+            subFlow(new SendStateAndRefFlow(otherPartyFlow, ours));
+            final Set<StateRef> sent = ours.stream().map(StateAndRef::getRef).collect(Collectors.toSet());
+
+            final boolean proceed = otherPartyFlow.receive(Boolean.class).unwrap(data -> data);
+            if (!proceed) {
+                return null;
+            }
+
+            class SignTxFlow extends SignTransactionFlow {
+                private SignTxFlow(FlowSession otherPartyFlow, ProgressTracker progressTracker) {
+                    super(otherPartyFlow, progressTracker);
+                }
+
+                @Override
+                protected void checkTransaction(SignedTransaction stx) throws FlowException {
+                    // The dependencies have been resolved by now, so the inputs can be loaded to recompute the result.
+                    final List<IOUState> inputs = new ArrayList<>();
+                    boolean onlyOursConsumed = true;
+                    for (StateRef ref : stx.getTx().getInputs()) {
+                        ContractState input = getServiceHub().loadState(ref).getData();
+                        if (!(input instanceof IOUState)) {
+                            throw new FlowException("Only IOUs may be compressed.");
+                        }
+                        IOUState iou = (IOUState) input;
+                        if ((iou.getLender().equals(me) || iou.getBorrower().equals(me)) && !sent.contains(ref)) {
+                            onlyOursConsumed = false;
+                        }
+                        inputs.add(iou);
+                    }
+                    final boolean consumesOnlyOurs = onlyOursConsumed;
+                    final Set<DebtGraph.Obligation> outputs = stx.getTx().outputsOfType(IOUState.class).stream()
+                            .filter(iou -> iou.getAmount().getToken().equals(currency) && iou.getPaid().getQuantity() == 0)
+                            .map(iou -> new DebtGraph.Obligation(iou.getLender(), iou.getBorrower(), iou.getAmount().getQuantity()))
+                            .collect(Collectors.toSet());
+
+                    requireThat(require -> {
+                        require.using("This must be an IOU compression transaction", stx.getTx().getCommands().stream()
+                                .anyMatch(command -> command.getValue() instanceof IOUContract.Commands.Compress));
+                        require.using("Every IOU of ours that is compressed must be one we contributed.", consumesOnlyOurs);
+                        List<DebtGraph.Obligation> expected = DebtGraph.of(currency, inputs).compress();
+                        require.using("The compressed IOUs must be exactly what is left of the inputs once their cycles are cancelled.",
+                                stx.getTx().getOutputs().size() == expected.size() && outputs.equals(new HashSet<>(expected)));
+                        return null;
+                    });
+                }
+            }
+
+            SignedTransaction signedTransaction = subFlow(new SignTxFlow(otherPartyFlow, SignTransactionFlow.Companion.tracker()));
+            return subFlow(new ReceiveFinalityFlow(otherPartyFlow, signedTransaction.getId()));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package net.corda.training.flow;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.Amount;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.FieldInfo;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.training.schema.IOUSchemaV1;
+import net.corda.training.state.IOUState;
+
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.getField;
+
+/**
+ * Computes how much each borrower still owes us, per currency, inside the node.
+ * The outstanding amounts are summed by the database over the [IOUSchemaV1] table, grouped by borrower and currency,
+ * so only the resulting map crosses RPC rather than every [IOUState] in the vault.
+ */
+@StartableByRPC
+public class IOUExposureFlow extends FlowLogic<Map<String, Map<Currency, Amount<Currency>>>> {
+
+    @Suspendable
+    @Override
+    public Map<String, Map<Currency, Amount<Currency>>> call() throws FlowException {
+        final FieldInfo lender;
+        final FieldInfo borrower;
+        final FieldInfo currency;
+        final FieldInfo outstanding;
+        try {
+            lender = getField("lender", IOUSchemaV1.PersistentIOU.class);
+            borrower = getField("borrower", IOUSchemaV1.PersistentIOU.class);
+            currency = getField("currency", IOUSchemaV1.PersistentIOU.class);
+            outstanding = getField("outstanding", IOUSchemaV1.PersistentIOU.class);
+        } catch (NoSuchFieldException e) {
+            throw new FlowException(e);
+        }
+
+        QueryCriteria criteria = new QueryCriteria.VaultCustomQueryCriteria(
+                Builder.equal(lender, getOurIdentity().getName().toString()))
+                .and(new QueryCriteria.VaultCustomQueryCriteria(
+                        Builder.sum(outstanding, Arrays.asList(borrower, currency))));
+        Vault.Page<IOUState> result = getServiceHub().getVaultService().queryBy(IOUState.class, criteria);
+
+        // Each group comes back as consecutive [sum, borrower, currency] entries.
+        Map<String, Map<Currency, Amount<Currency>>> exposure = new LinkedHashMap<>();
+        List<Object> rows = result.getOtherResults();
+        for (int i = 0; i + 2 < rows.size(); i += 3) {
+            long sum = ((Number) rows.get(i)).longValue();
+            if (sum == 0) continue;
+            Currency token = Currency.getInstance((String) rows.get(i + 2));
+            exposure.computeIfAbsent((String) rows.get(i + 1), key -> new LinkedHashMap<>())
+                    .put(token, new Amount<>(sum, token));
+        }
+        return exposure;
+    }
+}
@@ -2,8 +2,11 @@ package net.corda.training.flow;
 
 import co.paralleluniverse.fibers.Suspendable;
 
-import java.util.Arrays;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import net.corda.core.contracts.Command;
 import net.corda.core.contracts.ContractState;
@@ -25,6 +28,8 @@ import static net.corda.training.contract.IOUContract.Commands.*;
 
 /**
  * This is the flow which handles issuance of new IOUs on the ledger.
+ * Several IOUs can be issued in one transaction, so a batch between the same counterparties costs one round of
+ * signatures and one notarisation rather than one per IOU.
  * Gathering the counterparty's signature is handled by the [CollectSignaturesFlow].
  * Notarisation (if required) and commitment to the ledger is handled by the [FinalityFlow].
  * The flow returns the [SignedTransaction] that was committed to the ledger.
@@ -35,16 +40,46 @@ public class IOUIssueFlow {
     @StartableByRPC
     public static class InitiatorFlow extends FlowLogic<SignedTransaction> {
 
+        private final List<IOUState> states;
+
         public InitiatorFlow(IOUState state) {
+            this(Collections.singletonList(state));
+        }
+
+        public InitiatorFlow(List<IOUState> states) {
+            if (states.isEmpty()) {
+                throw new IllegalArgumentException("At least one IOU must be issued.");
+            }
+            this.states = states;
         }
 
-        // This is a mock function to prevent errors. Delete the body of the function before starting development.
+        @Suspendable
+        @Override
         public SignedTransaction call() throws FlowException {
             final Party notary = getServiceHub().getNetworkMapCache().getNotaryIdentities().get(0);
             final TransactionBuilder builder = new TransactionBuilder(notary);
+
+            final Set<Party> participants = new LinkedHashSet<>();
+            for (IOUState state : states) {
+                if (!state.getParticipants().contains(getOurIdentity())) {
+                    throw new IllegalArgumentException("The initiator must be the lender or the borrower of every IOU.");
+                }
+                builder.addOutputState(state, IOUContract.IOU_CONTRACT_ID);
+                participants.add(state.getLender());
+                participants.add(state.getBorrower());
+            }
+            final List<PublicKey> signers = participants.stream().map(Party::getOwningKey).collect(Collectors.toList());
+            builder.addCommand(new IOUContract.Commands.Issue(), signers);
+
+            builder.verify(getServiceHub());
             final SignedTransaction ptx = getServiceHub().signInitialTransaction(builder);
-			final List<FlowSession> sessions = Arrays.asList(initiateFlow(getOurIdentity()));
-			return subFlow(new FinalityFlow(ptx, sessions));
+
+            final List<FlowSession> sessions = participants.stream()
+                    .filter(party -> !party.equals(getOurIdentity()))
+                    .map(this::initiateFlow)
+                    .collect(Collectors.toList());
+            final SignedTransaction stx = subFlow(new CollectSignaturesFlow(ptx, sessions));
+            return subFlow(new FinalityFlow(stx, sessions));
         }
     }
 
@@ -74,13 +109,14 @@ public class IOUIssueFlow {
 				@Override
 				protected void checkTransaction(SignedTransaction stx){
 					requireThat(req -> {
-						ContractState output = stx.getTx().getOutputs().get(0).getData();
-						req.using("This must be an IOU transaction", output instanceof IOUState);
+						req.using("This must be an IOU transaction", stx.getTx().getOutputs().stream()
+								.allMatch(output -> output.getData() instanceof IOUState));
 						return null;
 					});
 				}
 			}
-			return subFlow(new SignTxFlow(flowSession, SignTransactionFlow.Companion.tracker()));
+			SignedTransaction signedTransaction = subFlow(new SignTxFlow(flowSession, SignTransactionFlow.Companion.tracker()));
+			return subFlow(new ReceiveFinalityFlow(flowSession, signedTransaction.getId()));
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package net.corda.training.flow;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.google.common.collect.ImmutableList;
+import net.corda.core.contracts.Amount;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.flows.*;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import net.corda.training.contract.IOUContract;
+import net.corda.training.state.IOUState;
+
+import java.security.PublicKey;
+import java.util.Currency;
+import java.util.List;
+
+import static net.corda.core.contracts.ContractsDSL.requireThat;
+
+/**
+ * This is the flow which nets off the IOUs we and a counterparty owe each other in one currency.
+ * Every unconsumed IOU between the two parties in that currency is consumed and replaced by a single residual IOU for
+ * the difference, owed by whichever party was the net debtor. If the IOUs cancel out exactly, nothing is left.
+ * Gathering the counterparty's signature is handled by the [CollectSignaturesFlow].
+ * Notarisation (if required) and commitment to the ledger is handled by the [FinalityFlow].
+ * The flow returns the [SignedTransaction] that was committed to the ledger.
+ */
+public class IOUNetFlow {
+
+    @InitiatingFlow
+    @StartableByRPC
+    public static class InitiatorFlow extends FlowLogic<SignedTransaction> {
+
+        private final Party counterparty;
+        private final Currency currency;
+
+        public InitiatorFlow(Party counterparty, Currency currency) {
+            this.counterparty = counterparty;
+            this.currency = currency;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+            Party me = getOurIdentity();
+            if (me.equals(counterparty)) {
+                throw new IllegalArgumentException("IOUs can only be netted with another party.");
+            }
+
+            List<StateAndRef<IOUState>> ious = IOUQueries.findIOUsAmong(getServiceHub(), ImmutableList.of(me, counterparty), currency);
+            long net = 0;
+            boolean owed = false;
+            boolean owing = false;
+            for (StateAndRef<IOUState> iou : ious) {
+                IOUState state = iou.getState().getData();
+                long outstanding = state.getAmount().getQuantity() - state.getPaid().getQuantity();
+                if (state.getLender().equals(me)) {
+                    net += outstanding;
+                    owed = true;
+                } else {
+                    net -= outstanding;
+                    owing = true;
+                }
+            }
+            if (!owed || !owing) {
+                throw new IllegalArgumentException("There must be IOUs in both directions to net.");
+            }
+
+            final Party notary = ious.get(0).getState().getNotary();
+            final TransactionBuilder builder = new TransactionBuilder(notary);
+            ious.forEach(builder::addInputState);
+            if (net != 0) {
+                Party lender = net > 0 ? me : counterparty;
+                Party borrower = net > 0 ? counterparty : me;
+                builder.addOutputState(new IOUState(new Amount<>(Math.abs(net), currency), lender, borrower), IOUContract.IOU_CONTRACT_ID);
+            }
+            List<PublicKey> signers = ImmutableList.of(me.getOwningKey(), counterparty.getOwningKey());
+            builder.addCommand(new IOUContract.Commands.Net(), signers);
+
+            builder.verify(getServiceHub());
+            final SignedTransaction ptx = getServiceHub().signInitialTransaction(builder);
+
+            final List<FlowSession> sessions = ImmutableList.of(initiateFlow(counterparty));
+            final SignedTransaction stx = subFlow(new CollectSignaturesFlow(ptx, sessions));
+            return subFlow(new FinalityFlow(stx, sessions));
+        }
+    }
+
+    /**
+     * This is the flow which signs IOU nettings.
+     * The signing is handled by the [SignTransactionFlow].
+     */
+    @InitiatedBy(IOUNetFlow.InitiatorFlow.class)
+    public static class Responder extends FlowLogic<SignedTransaction> {
+
+        private final FlowSession otherPartyFlow;
+
+        public Responder(FlowSession otherPartyFlow) {
+            this.otherPartyFlow = otherPartyFlow;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+            class SignTxFlow extends SignTransactionFlow {
+                private SignTxFlow(FlowSession otherPartyFlow, ProgressTracker progressTracker) {
+                    super(otherPartyFlow, progressTracker);
+                }
+
+                @Override
+                protected void checkTransaction(SignedTransaction stx) {
+                    requireThat(require -> {
+                        require.using("This must be an IOU net transaction", stx.getTx().getCommands().stream()
+                                .anyMatch(command -> command.getValue() instanceof IOUContract.Commands.Net));
+                        return null;
+                    });
+                }
+            }
+
+            SignedTransaction signedTransaction = subFlow(new SignTxFlow(otherPartyFlow, SignTransactionFlow.Companion.tracker()));
+            return subFlow(new ReceiveFinalityFlow(otherPartyFlow, signedTransaction.getId()));
+        }
+    }
+}
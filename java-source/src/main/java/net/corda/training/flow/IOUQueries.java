@@ -0,0 +1,60 @@
+package net.corda.training.flow;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.flows.FlowException;
+import net.corda.core.identity.Party;
+import net.corda.core.node.ServiceHub;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.training.schema.IOUSchemaV1;
+import net.corda.training.state.IOUState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.getField;
+
+/**
+ * Vault lookups over the [IOUSchemaV1] table shared by the netting and compression flows.
+ */
+class IOUQueries {
+    private static final int PAGE_SIZE = 500;
+
+    private IOUQueries() {
+    }
+
+    /**
+     * Pages through the vault for every unconsumed IOU in [currency] whose lender and borrower are both in [parties].
+     */
+    static List<StateAndRef<IOUState>> findIOUsAmong(ServiceHub serviceHub, Collection<Party> parties, Currency currency) throws FlowException {
+        final QueryCriteria criteria;
+        try {
+            List<String> names = parties.stream().map(party -> party.getName().toString()).collect(Collectors.toList());
+            criteria = new QueryCriteria.VaultCustomQueryCriteria(
+                    Builder.in(getField("lender", IOUSchemaV1.PersistentIOU.class), names))
+                    .and(new QueryCriteria.VaultCustomQueryCriteria(
+                            Builder.in(getField("borrower", IOUSchemaV1.PersistentIOU.class), names)))
+                    .and(new QueryCriteria.VaultCustomQueryCriteria(
+                            Builder.equal(getField("currency", IOUSchemaV1.PersistentIOU.class), currency.getCurrencyCode())));
+        } catch (NoSuchFieldException e) {
+            throw new FlowException(e);
+        }
+
+        List<StateAndRef<IOUState>> ious = new ArrayList<>();
+        int pageNumber = DEFAULT_PAGE_NUM;
+        while (true) {
+            Vault.Page<IOUState> page = serviceHub.getVaultService().queryBy(IOUState.class, criteria,
+                    new PageSpecification(pageNumber, PAGE_SIZE));
+            ious.addAll(page.getStates());
+            if (page.getStates().isEmpty() || (long) pageNumber * PAGE_SIZE >= page.getTotalStatesAvailable()) break;
+            pageNumber++;
+        }
+        return ious;
+    }
+}
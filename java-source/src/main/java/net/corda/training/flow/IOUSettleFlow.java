@@ -14,9 +14,12 @@ import net.corda.core.transactions.TransactionBuilder;
 import net.corda.core.utilities.OpaqueBytes;
 import net.corda.core.utilities.ProgressTracker;
 import net.corda.finance.contracts.asset.Cash;
+import net.corda.finance.contracts.asset.PartyAndAmount;
 import net.corda.finance.flows.AbstractCashFlow;
 import net.corda.finance.flows.CashIssueFlow;
+import net.corda.finance.workflows.asset.CashUtils;
 import net.corda.training.contract.IOUContract;
+import net.corda.training.service.IOUIndexService;
 import net.corda.training.state.IOUState;
 
 import java.lang.IllegalArgumentException;
@@ -44,16 +47,96 @@ public class IOUSettleFlow {
     @StartableByRPC
     public static class InitiatorFlow extends FlowLogic<SignedTransaction> {
 
-        public InitiatorFlow(IOUState state) {
+        // The amount to pay off each IOU. A null amount settles whatever is outstanding.
+        private final Map<UniqueIdentifier, Amount<Currency>> settlements;
+
+        public InitiatorFlow(UniqueIdentifier linearId, Amount<Currency> amount) {
+            this.settlements = new LinkedHashMap<>();
+            this.settlements.put(linearId, amount);
+        }
+
+        /**
+         * Fully settles every IOU in [linearIds] in one transaction, paying each lender once per currency.
+         */
+        public InitiatorFlow(List<UniqueIdentifier> linearIds) {
+            if (linearIds.isEmpty()) {
+                throw new IllegalArgumentException("At least one IOU must be settled.");
+            }
+            this.settlements = new LinkedHashMap<>();
+            linearIds.forEach(linearId -> this.settlements.put(linearId, null));
         }
 
-        // This is a mock function to prevent errors. Delete the body of the function before starting development.
+        @Suspendable
+        @Override
         public SignedTransaction call() throws FlowException {
-            final Party notary = getServiceHub().getNetworkMapCache().getNotaryIdentities().get(0);
-            final TransactionBuilder builder = new TransactionBuilder(notary);
-            final SignedTransaction ptx = getServiceHub().signInitialTransaction(builder);
-            final List<FlowSession> sessions = Arrays.asList(initiateFlow(getOurIdentity()));
-            return subFlow(new FinalityFlow(ptx, sessions));
+            IOUIndexService index = getServiceHub().cordaService(IOUIndexService.class);
+            TransactionBuilder builder = null;
+            Set<Party> lenders = new LinkedHashSet<>();
+            // Payments due to each lender, bucketed by currency as that is how cash is spent.
+            Map<Currency, Map<Party, Long>> payments = new LinkedHashMap<>();
+
+            for (Map.Entry<UniqueIdentifier, Amount<Currency>> settlement : settlements.entrySet()) {
+                // Resolve the IOU to settle from the linearId index rather than querying the vault.
+                StateAndRef<IOUState> inputStateAndRef = index.resolve(settlement.getKey());
+                IOUState inputIOU = inputStateAndRef.getState().getData();
+
+                if (!getOurIdentity().equals(inputIOU.getBorrower())) {
+                    throw new IllegalArgumentException("Settle IOU flow must be initiated by the borrower.");
+                }
+                if (builder == null) {
+                    builder = new TransactionBuilder(inputStateAndRef.getState().getNotary());
+                }
+
+                Currency currency = (Currency) inputIOU.getAmount().getToken();
+                long outstanding = inputIOU.getAmount().getQuantity() - inputIOU.getPaid().getQuantity();
+                long payment = settlement.getValue() == null ? outstanding : settlement.getValue().getQuantity();
+                if (settlement.getValue() != null && !settlement.getValue().getToken().equals(currency)) {
+                    throw new IllegalArgumentException("The IOU must be settled in " + currency + ".");
+                }
+                if (payment <= 0 || payment > outstanding) {
+                    throw new IllegalArgumentException("The amount settled must be positive and no more than the amount outstanding.");
+                }
+
+                builder.addInputState(inputStateAndRef);
+                if (payment < outstanding) {
+                    builder.addOutputState(inputIOU.pay(new Amount<>(payment, currency)), IOUContract.IOU_CONTRACT_ID);
+                }
+                lenders.add(inputIOU.getLender());
+                payments.computeIfAbsent(currency, key -> new LinkedHashMap<>()).merge(inputIOU.getLender(), payment, Long::sum);
+            }
+
+            // One coin selection per currency covers every lender paid in it.
+            List<PublicKey> myKeys = new ArrayList<>();
+            for (Map.Entry<Currency, Map<Party, Long>> perCurrency : payments.entrySet()) {
+                Currency currency = perCurrency.getKey();
+                long total = perCurrency.getValue().values().stream().mapToLong(Long::longValue).sum();
+                Amount<Currency> cashBalance = getCashBalance(getServiceHub(), currency);
+                if (cashBalance.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Borrower has no " + currency + " to settle.");
+                }
+                if (cashBalance.getQuantity() < total) {
+                    throw new IllegalArgumentException("Borrower doesn't have enough cash to settle with the amount specified.");
+                }
+
+                List<PartyAndAmount<Currency>> cashPayments = perCurrency.getValue().entrySet().stream()
+                        .map(payment -> new PartyAndAmount<Currency>(payment.getKey(), new Amount<>(payment.getValue(), currency)))
+                        .collect(Collectors.toList());
+                myKeys.addAll(CashUtils.generateSpend(getServiceHub(), builder, cashPayments,
+                        getOurIdentityAndCert(), ImmutableSet.of()).getSecond());
+            }
+
+            List<PublicKey> signers = new ArrayList<>();
+            lenders.forEach(lender -> signers.add(lender.getOwningKey()));
+            signers.add(getOurIdentity().getOwningKey());
+            builder.addCommand(new IOUContract.Commands.Settle(), signers);
+            builder.verify(getServiceHub());
+
+            myKeys.add(getOurIdentity().getOwningKey());
+            SignedTransaction ptx = getServiceHub().signInitialTransaction(builder, myKeys);
+
+            List<FlowSession> sessions = lenders.stream().map(this::initiateFlow).collect(Collectors.toList());
+            SignedTransaction stx = subFlow(new CollectSignaturesFlow(ptx, sessions, myKeys));
+            return subFlow(new FinalityFlow(stx, sessions));
         }
     }
 
@@ -82,14 +165,16 @@ public class IOUSettleFlow {
                 @Override
                 protected void checkTransaction(SignedTransaction stx) {
                     requireThat(require -> {
-                        ContractState output = stx.getTx().outputsOfType(IOUState.class).get(0);
-                        require.using("This must be an IOU transaction", output instanceof IOUState);
+                        // A full settlement has no IOU output, so look for the Settle command instead.
+                        require.using("This must be an IOU settle transaction", stx.getTx().getCommands().stream()
+                                .anyMatch(command -> command.getValue() instanceof IOUContract.Commands.Settle));
                         return null;
                     });
                 }
             }
 
-            return subFlow(new SignTxFlow(otherPartyFlow, SignTransactionFlow.Companion.tracker()));
+            SignedTransaction signedTransaction = subFlow(new SignTxFlow(otherPartyFlow, SignTransactionFlow.Companion.tracker()));
+            return subFlow(new ReceiveFinalityFlow(otherPartyFlow, signedTransaction.getId()));
         }
     }
 
@@ -1,6 +1,7 @@
 package net.corda.training.flow;
 
 import co.paralleluniverse.fibers.Suspendable;
+import com.google.common.collect.ImmutableSet;
 import net.corda.core.contracts.Command;
 import net.corda.core.contracts.ContractState;
 import net.corda.core.contracts.StateAndRef;
@@ -14,6 +15,7 @@ import net.corda.core.node.services.vault.QueryCriteria;
 import net.corda.core.transactions.SignedTransaction;
 import net.corda.core.transactions.TransactionBuilder;
 import net.corda.training.contract.IOUContract;
+import net.corda.training.service.IOUIndexService;
 import net.corda.training.state.IOUState;
 
 import javax.annotation.Signed;
@@ -29,26 +31,58 @@ import static net.corda.core.contracts.ContractsDSL.requireThat;
 
 public class IOUTransferFlow{
 
+    /**
+     * This is the flow which handles transfers of existing IOUs on the ledger.
+     * Gathering the counterparty's signature is handled by the [CollectSignaturesFlow].
+     * Notarisation (if required) and commitment to the ledger is handled by the [FinalityFlow].
+     * The flow returns the [SignedTransaction] that was committed to the ledger.
+     */
     @InitiatingFlow
     @StartableByRPC
     public static class InitiatorFlow extends FlowLogic<SignedTransaction> {
 
-        public InitiatorFlow(IOUState state) {
+        private final UniqueIdentifier linearId;
+        private final Party newLender;
+
+        public InitiatorFlow(UniqueIdentifier linearId, Party newLender) {
+            this.linearId = linearId;
+            this.newLender = newLender;
         }
 
-        // This is a mock function to prevent errors. Delete the body of the function before starting development.
+        @Suspendable
+        @Override
         public SignedTransaction call() throws FlowException {
-            final Party notary = getServiceHub().getNetworkMapCache().getNotaryIdentities().get(0);
-            final TransactionBuilder builder = new TransactionBuilder(notary);
-            final SignedTransaction ptx = getServiceHub().signInitialTransaction(builder);
-            final List<FlowSession> sessions = Arrays.asList(initiateFlow(getOurIdentity()));
-            return subFlow(new FinalityFlow(ptx, sessions));
+            // Resolve the IOU to transfer from the linearId index rather than querying the vault.
+            StateAndRef<IOUState> inputStateAndRef = getServiceHub().cordaService(IOUIndexService.class).resolve(linearId);
+            IOUState inputIOU = inputStateAndRef.getState().getData();
+
+            if (!getOurIdentity().equals(inputIOU.getLender())) {
+                throw new IllegalArgumentException("This flow must be run by the current lender.");
+            }
+
+            IOUState outputIOU = inputIOU.withNewLender(newLender);
+            List<PublicKey> signers = ImmutableSet.of(inputIOU.getBorrower(), inputIOU.getLender(), newLender)
+                    .stream().map(Party::getOwningKey).collect(Collectors.toList());
+
+            TransactionBuilder builder = new TransactionBuilder(inputStateAndRef.getState().getNotary())
+                    .addInputState(inputStateAndRef)
+                    .addOutputState(outputIOU, IOUContract.IOU_CONTRACT_ID)
+                    .addCommand(new IOUContract.Commands.Transfer(), signers);
+            builder.verify(getServiceHub());
+            SignedTransaction ptx = getServiceHub().signInitialTransaction(builder);
+
+            List<FlowSession> sessions = ImmutableSet.of(inputIOU.getBorrower(), newLender).stream()
+                    .filter(party -> !party.equals(getOurIdentity()))
+                    .map(this::initiateFlow)
+                    .collect(Collectors.toList());
+            SignedTransaction stx = subFlow(new CollectSignaturesFlow(ptx, sessions));
+            return subFlow(new FinalityFlow(stx, sessions));
         }
     }
 
 
     /**
-     * This is the flow which signs IOU settlements.
+     * This is the flow which signs IOU transfers.
      * The signing is handled by the [SignTransactionFlow].
      * Uncomment the initiatedBy annotation to facilitate the responder flow.
      */
@@ -77,7 +111,8 @@ public class IOUTransferFlow{
                     });
                 }
             }
-            return subFlow(new SignTxFlow(otherPartyFlow, SignTransactionFlow.Companion.tracker()));
+            SignedTransaction signedTransaction = subFlow(new SignTxFlow(otherPartyFlow, SignTransactionFlow.Companion.tracker()));
+            return subFlow(new ReceiveFinalityFlow(otherPartyFlow, signedTransaction.getId()));
         }
 
     }
@@ -9,13 +9,21 @@ import com.google.common.collect.ImmutableMap;
 import java.util.function.Function;
 import java.util.*;
 
+import net.corda.training.api.CompactViewModule;
 import net.corda.training.api.IOUApi;
+import net.corda.training.api.ResponseCompression;
+import net.corda.training.api.RpcConnectionPool;
+import net.corda.training.api.WebAssetsApi;
 
 public class IOUPlugin implements WebServerPluginRegistry {
     /**
-     * A list of classes that expose web APIs.
+     * A list of classes that expose web APIs, along with the providers applied to their responses.
      */
-    private final List<Function<CordaRPCOps, ?>> webApis = ImmutableList.of(IOUApi::new);
+    private final List<Function<CordaRPCOps, ?>> webApis = ImmutableList.of(
+            IOUApi::new,
+            rpcOps -> new WebAssetsApi(),
+            rpcOps -> new ResponseCompression(),
+            rpcOps -> new RpcConnectionPool.SaturationMapper());
 
     /**
      * A list of directories in the resources directory that will be served by Jetty under /web.
@@ -36,7 +44,8 @@ public class IOUPlugin implements WebServerPluginRegistry {
     }
 
     @Override
-    public void customizeJSONSerialization(ObjectMapper objectMapper) { 
-
-     }
+    public void customizeJSONSerialization(ObjectMapper objectMapper) {
+        // Writes the compact projections returned for "view=compact".
+        objectMapper.registerModule(new CompactViewModule());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package net.corda.training.schema;
+
+/**
+ * The family of schemas for the [IOUState]. Each version of the mapped schema points back at this class so that the
+ * node can work out which versions describe the same logical state.
+ */
+public class IOUSchema {
+}
@@ -0,0 +1,105 @@
+package net.corda.training.schema;
+
+import com.google.common.collect.ImmutableList;
+import net.corda.core.schemas.MappedSchema;
+import net.corda.core.schemas.PersistentState;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.UUID;
+
+/**
+ * An [IOUState] schema. The columns we filter on from the API and the flows (lender, borrower, currency and linearId)
+ * are indexed so that [VaultCustomQueryCriteria] lookups are resolved by the database rather than by deserialising
+ * every state in the vault.
+ */
+public class IOUSchemaV1 extends MappedSchema {
+
+    public IOUSchemaV1() {
+        super(IOUSchema.class, 1, ImmutableList.of(PersistentIOU.class));
+    }
+
+    @Entity
+    @Table(name = "iou_states", indexes = {
+            @Index(name = "iou_lender_idx", columnList = "lender"),
+            @Index(name = "iou_borrower_idx", columnList = "borrower"),
+            @Index(name = "iou_currency_idx", columnList = "currency"),
+            @Index(name = "iou_linear_id_idx", columnList = "linear_id")
+    })
+    public static class PersistentIOU extends PersistentState {
+
+        @Column(name = "lender", nullable = false)
+        private final String lender;
+
+        @Column(name = "borrower", nullable = false)
+        private final String borrower;
+
+        @Column(name = "currency", nullable = false, length = 3)
+        private final String currency;
+
+        @Column(name = "amount", nullable = false)
+        private final long amount;
+
+        @Column(name = "paid", nullable = false)
+        private final long paid;
+
+        @Column(name = "outstanding", nullable = false)
+        private final long outstanding;
+
+        @Column(name = "linear_id", nullable = false)
+        private final UUID linearId;
+
+        public PersistentIOU(String lender, String borrower, String currency, long amount, long paid, UUID linearId) {
+            this.lender = lender;
+            this.borrower = borrower;
+            this.currency = currency;
+            this.amount = amount;
+            this.paid = paid;
+            this.outstanding = amount - paid;
+            this.linearId = linearId;
+        }
+
+        /**
+         * Default constructor required by hibernate.
+         */
+        public PersistentIOU() {
+            this.lender = null;
+            this.borrower = null;
+            this.currency = null;
+            this.amount = 0;
+            this.paid = 0;
+            this.outstanding = 0;
+            this.linearId = null;
+        }
+
+        public String getLender() {
+            return lender;
+        }
+
+        public String getBorrower() {
+            return borrower;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public long getPaid() {
+            return paid;
+        }
+
+        public long getOutstanding() {
+            return outstanding;
+        }
+
+        public UUID getLinearId() {
+            return linearId;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package net.corda.training.service;
+
+import kotlin.Unit;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import net.corda.training.state.IOUState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * Maps the [UniqueIdentifier] of every unconsumed [IOUState] in the vault to its current [StateRef], so flows can find
+ * the state they are about to consume without a vault query.
+ *
+ * The service subscribes to the vault's updates when the node installs it, and pages the existing IOUs in on a
+ * background thread so the node's startup and the vault's update thread are not held up by the scan. Updates that
+ * arrive while the snapshot is loading are buffered and replayed on top of it. The snapshot is checked as it is paged
+ * in: if the vault's count of unconsumed IOUs moves, or the pages don't add up to it, it is loaded again, up to
+ * [MAX_LOAD_ATTEMPTS] times. Until the index is loaded, [resolve] answers from the linear state query.
+ *
+ * The index is trusted once loaded, since the vault's updates keep it current. A ref that is consumed between the
+ * update and its use is caught by the notary as a double spend, like any other race for the same input.
+ */
+@CordaService
+public class IOUIndexService extends SingletonSerializeAsToken {
+    private static final Logger logger = LoggerFactory.getLogger(IOUIndexService.class);
+    private static final int PAGE_SIZE = 1000;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final AppServiceHub serviceHub;
+    private final Map<UniqueIdentifier, StateRef> index = new ConcurrentHashMap<>();
+    // Guarded by this. Updates seen while the snapshot loads, replayed once it is in.
+    private final List<Vault.Update<ContractState>> pending = new ArrayList<>();
+    private volatile boolean loaded = false;
+    private volatile boolean abandoned = false;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "iou-index-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IOUIndexService(AppServiceHub serviceHub) {
+        this.serviceHub = serviceHub;
+        serviceHub.getVaultService().getUpdates().subscribe(this::onUpdate);
+        serviceHub.registerUnloadHandler(() -> {
+            loader.shutdownNow();
+            return Unit.INSTANCE;
+        });
+        loader.execute(this::load);
+    }
+
+    /**
+     * Returns the unconsumed [IOUState] with the given [linearId]. An indexed IOU is loaded by its ref without a vault
+     * query; one that is not indexed, or any IOU before the index has loaded, is found with a linear state query.
+     */
+    public StateAndRef<IOUState> resolve(UniqueIdentifier linearId) {
+        StateRef ref = index.get(linearId);
+        if (ref != null) return serviceHub.toStateAndRef(ref);
+
+        QueryCriteria criteria = new QueryCriteria.LinearStateQueryCriteria(
+                null, Collections.singletonList(linearId), Vault.StateStatus.UNCONSUMED, null);
+        List<StateAndRef<IOUState>> states = serviceHub.getVaultService().queryBy(IOUState.class, criteria).getStates();
+        if (states.isEmpty()) {
+            throw new IllegalArgumentException("No IOU with linearId " + linearId + " found in the vault.");
+        }
+        if (loaded) index.putIfAbsent(linearId, states.get(0).getRef());
+        return states.get(0);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    private void load() {
+        try {
+            for (int attempt = 1; attempt <= MAX_LOAD_ATTEMPTS; attempt++) {
+                Map<UniqueIdentifier, StateRef> snapshot = snapshot();
+                if (snapshot != null) {
+                    install(snapshot);
+                    logger.info("IOU index loaded: {} unconsumed IOUs.", snapshot.size());
+                    return;
+                }
+                logger.info("The vault changed while the IOU index was loading, loading it again.");
+            }
+            logger.warn("The IOU index did not load after {} attempts, resolving IOUs with vault queries.", MAX_LOAD_ATTEMPTS);
+        } catch (RuntimeException e) {
+            logger.warn("Could not load the IOU index, resolving IOUs with vault queries.", e);
+        }
+        abandon();
+    }
+
+    private synchronized void abandon() {
+        abandoned = true;
+        pending.clear();
+    }
+
+    /**
+     * Pages in every unconsumed IOU. Returns null if the pages don't add up to one consistent view of the vault: the
+     * total moved between pages, or a shifted page repeated or skipped a state.
+     */
+    private Map<UniqueIdentifier, StateRef> snapshot() {
+        Map<UniqueIdentifier, StateRef> snapshot = new HashMap<>();
+        long total = -1;
+        int pageNumber = DEFAULT_PAGE_NUM;
+        while (true) {
+            Vault.Page<IOUState> page = serviceHub.getVaultService().queryBy(IOUState.class,
+                    new QueryCriteria.VaultQueryCriteria(), new PageSpecification(pageNumber, PAGE_SIZE));
+            if (total == -1) total = page.getTotalStatesAvailable();
+            if (page.getTotalStatesAvailable() != total) return null;
+            for (StateAndRef<IOUState> state : page.getStates()) {
+                if (snapshot.put(state.getState().getData().getLinearId(), state.getRef()) != null) return null;
+            }
+            if (page.getStates().isEmpty() || (long) pageNumber * PAGE_SIZE >= total) break;
+            pageNumber++;
+        }
+        return snapshot.size() == total ? snapshot : null;
+    }
+
+    private synchronized void install(Map<UniqueIdentifier, StateRef> snapshot) {
+        index.putAll(snapshot);
+        pending.forEach(this::apply);
+        pending.clear();
+        loaded = true;
+    }
+
+    private void onUpdate(Vault.Update<ContractState> update) {
+        if (!loaded) {
+            synchronized (this) {
+                if (abandoned) return;
+                if (!loaded) {
+                    pending.add(update);
+                    return;
+                }
+            }
+        }
+        apply(update);
+    }
+
+    private void apply(Vault.Update<ContractState> update) {
+        for (StateAndRef<ContractState> consumed : update.getConsumed()) {
+            ContractState state = consumed.getState().getData();
+            if (state instanceof IOUState) {
+                index.remove(((IOUState) state).getLinearId(), consumed.getRef());
+            }
+        }
+        for (StateAndRef<ContractState> produced : update.getProduced()) {
+            ContractState state = produced.getState().getData();
+            if (state instanceof IOUState) {
+                index.put(((IOUState) state).getLinearId(), produced.getRef());
+            }
+        }
+    }
+}
@@ -7,7 +7,11 @@ import net.corda.core.contracts.LinearState;
 import net.corda.core.contracts.UniqueIdentifier;
 import net.corda.core.identity.AbstractParty;
 import net.corda.core.identity.Party;
+import net.corda.core.schemas.MappedSchema;
+import net.corda.core.schemas.PersistentState;
+import net.corda.core.schemas.QueryableState;
 import net.corda.core.serialization.ConstructorForDeserialization;
+import net.corda.training.schema.IOUSchemaV1;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Currency;
@@ -18,7 +22,7 @@ import java.util.Objects;
  * This is where you'll add the definition of your state object. Look at the unit tests in [IOUStateTests] for
  * instructions on how to complete the [IOUState] class.
  */
-public class IOUState implements ContractState, LinearState {
+public class IOUState implements ContractState, LinearState, QueryableState {
 
     private Amount amount;
 
@@ -76,7 +80,7 @@ public class IOUState implements ContractState, LinearState {
 
     public IOUState pay(Amount amount) {
         Amount amountPaid = this.paid.plus(amount);
-        return new IOUState(amount, lender, borrower, amountPaid, linearId);
+        return new IOUState(this.amount, lender, borrower, amountPaid, linearId);
     }
 
     public IOUState withNewLender(Party newLenderParty) {
@@ -84,6 +88,31 @@ public class IOUState implements ContractState, LinearState {
     }
 
 
+    /**
+     * Maps this state to the indexed [IOUSchemaV1] table so the vault can be filtered in the database.
+     */
+    @NotNull
+    @Override
+    public PersistentState generateMappedObject(@NotNull MappedSchema schema) {
+        if (schema instanceof IOUSchemaV1) {
+            return new IOUSchemaV1.PersistentIOU(
+                    lender.getName().toString(),
+                    borrower.getName().toString(),
+                    ((Currency) amount.getToken()).getCurrencyCode(),
+                    amount.getQuantity(),
+                    paid.getQuantity(),
+                    linearId.getId());
+        } else {
+            throw new IllegalArgumentException("Unrecognised schema " + schema);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Iterable<MappedSchema> supportedSchemas() {
+        return ImmutableList.of(new IOUSchemaV1());
+    }
+
     /**
      * Copy/clone constructor
      *
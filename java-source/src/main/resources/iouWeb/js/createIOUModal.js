@@ -1,6 +1,6 @@
 "use strict";
 
-angular.module('demoAppModule').controller('CreateIOUModalCtrl', function($http, $uibModalInstance, $uibModal, apiBaseURL, peers) {
+angular.module('demoAppModule').controller('CreateIOUModalCtrl', function($http, flowJob, $uibModalInstance, $uibModal, apiBaseURL, peers) {
     const createIOUModal = this;
 
     createIOUModal.peers = peers;
@@ -26,7 +26,7 @@ angular.module('demoAppModule').controller('CreateIOUModalCtrl', function($http,
                 `issue-iou?amount=${amount}&currency=${currency}&party=${party}`;
 
             // We hit the endpoint to create the IOU and handle success/failure responses.
-            $http.put(issueIOUEndpoint).then(
+            $http.put(issueIOUEndpoint).then(flowJob).then(
                 (result) => createIOUModal.displayMessage(result),
                 (result) => createIOUModal.displayMessage(result)
             );
@@ -1,7 +1,7 @@
 "use strict";
 
 // Similar to the IOU creation modal - see createIOUModal.js for comments.
-angular.module('demoAppModule').controller('IssueCashModalCtrl', function($http, $uibModalInstance, $uibModal, apiBaseURL) {
+angular.module('demoAppModule').controller('IssueCashModalCtrl', function($http, flowJob, $uibModalInstance, $uibModal, apiBaseURL) {
     const issueCashModal = this;
 
     issueCashModal.form = {};
@@ -22,7 +22,7 @@ angular.module('demoAppModule').controller('IssueCashModalCtrl', function($http,
                 apiBaseURL +
                 `self-issue-cash?amount=${amount}&currency=${currency}`;
 
-            $http.get(issueCashEndpoint).then(
+            $http.post(issueCashEndpoint).then(flowJob).then(
                 (result) => {console.log(result.toString()); issueCashModal.displayMessage(result); },
                 (result) => {console.log(result.toString()); issueCashModal.displayMessage(result); }
             );
@@ -1,7 +1,7 @@
 "use strict";
 
 // Define your backend here.
-angular.module('demoAppModule', ['ui.bootstrap']).controller('DemoAppCtrl', function($http, $location, $uibModal) {
+angular.module('demoAppModule', ['ui.bootstrap']).controller('DemoAppCtrl', function($http, $location, $uibModal, $scope) {
     const demoApp = this;
 
     const apiBaseURL = "/api/iou/";
@@ -72,18 +72,71 @@ angular.module('demoAppModule', ['ui.bootstrap']).controller('DemoAppCtrl', func
         settleModal.result.then(() => {}, () => {});
     };
 
-    /** Refreshes the front-end. */
+    // The IOUs on screen, keyed by state reference so that deltas can be applied in place.
+    let iousByRef = {};
+    let loading = false;
+    let pendingDeltas = [];
+    const refKey = (ref) => `${ref.txhash}(${ref.index})`;
+
+    const showIOUs = () => demoApp.ious = Object.keys(iousByRef).map((key) => iousByRef[key].state.data);
+
+    const applyDelta = (delta) => {
+        delta.consumed.forEach((ref) => delete iousByRef[refKey(ref)]);
+        delta.produced.forEach((stateAndRef) => iousByRef[refKey(stateAndRef.ref)] = stateAndRef);
+    };
+
+    /** Reloads the IOUs and cash balances in full. Deltas that arrive meanwhile are applied on top. */
     demoApp.refresh = () => {
-        // Update the list of IOUs.
-        $http.get(apiBaseURL + "ious").then((response) => demoApp.ious =
-            Object.keys(response.data).map((key) => response.data[key].state.data));
+        loading = true;
+        $http.get(apiBaseURL + "ious?stream=true").then((response) => {
+            iousByRef = {};
+            response.data.forEach((stateAndRef) => iousByRef[refKey(stateAndRef.ref)] = stateAndRef);
+            // Deltas are idempotent by state reference, so replaying ones the snapshot already holds is harmless.
+            pendingDeltas.forEach(applyDelta);
+        }).finally(() => {
+            pendingDeltas = [];
+            loading = false;
+            showIOUs();
+        });
 
         // Update the cash balances.
         $http.get(apiBaseURL + "cash-balances").then((response) => demoApp.cashBalances =
             response.data);
+    };
+
+    // Changes are pushed by the node as Server-Sent Events; fall back to a one-off load without them.
+    if (window.EventSource) {
+        const events = new EventSource(apiBaseURL + "events");
+        events.addEventListener("reset", () => $scope.$applyAsync(demoApp.refresh));
+        events.addEventListener("iou", (event) => $scope.$applyAsync(() => {
+            const delta = JSON.parse(event.data);
+            if (loading) {
+                pendingDeltas.push(delta);
+            } else {
+                applyDelta(delta);
+                showIOUs();
+            }
+        }));
+        events.addEventListener("cash", (event) => $scope.$applyAsync(() =>
+            demoApp.cashBalances = JSON.parse(event.data)));
+        $scope.$on("$destroy", () => events.close());
+    } else {
+        demoApp.refresh();
     }
+});
+
+/**
+ * Flow endpoints answer 202 Accepted with a job as soon as the flow has started. This follows the job until the flow
+ * finishes, resolving with its result or rejecting with its error, so the modals can display either.
+ */
+angular.module('demoAppModule').factory('flowJob', function($http, $timeout, $q) {
+    const poll = (jobId) => $http.get(`/api/iou/jobs/${jobId}`).then((response) => {
+        const job = response.data;
+        if (job.status === 'RUNNING') return $timeout(() => poll(jobId), 500);
+        return job.status === 'COMPLETED' ? { data: job.result } : $q.reject({ data: job.error });
+    });
 
-    demoApp.refresh();
+    return (response) => response.status === 202 ? poll(response.data.jobId) : response;
 });
 
 // Causes the webapp to ignore unhandled modal dismissals.
@@ -0,0 +1,135 @@
+package net.corda.training.api;
+
+import net.corda.core.node.services.vault.Sort;
+import net.corda.training.schema.IOUSchemaV1;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_SIZE;
+import static org.junit.Assert.*;
+
+public class PageRequestTests {
+
+    @Test
+    public void defaultsToTheFirstPageInRecordedOrder() {
+        PageRequest request = new PageRequest(null, null, null);
+        assertEquals(DEFAULT_PAGE_NUM, request.getPage());
+        assertEquals(DEFAULT_PAGE_SIZE, request.getPageSize());
+        assertEquals("recordedTime", request.getSortField());
+        assertFalse(request.isDescending());
+    }
+
+    @Test
+    public void cursorRoundTrips() {
+        PageRequest request = new PageRequest(3, 50, "amount,desc");
+        PageRequest decoded = PageRequest.of(request.toCursor(), null, null, null);
+        assertEquals(3, decoded.getPage());
+        assertEquals(50, decoded.getPageSize());
+        assertEquals("amount,desc", decoded.getSort());
+
+        PageRequest next = PageRequest.of(request.next().toCursor(), null, null, null);
+        assertEquals(4, next.getPage());
+        assertEquals(50, next.getPageSize());
+        assertEquals("amount,desc", next.getSort());
+    }
+
+    @Test
+    public void cursorWinsOverQueryParameters() {
+        String cursor = new PageRequest(2, 10, "linearId").toCursor();
+        PageRequest request = PageRequest.of(cursor, 7, 20, "amount");
+        assertEquals(2, request.getPage());
+        assertEquals(10, request.getPageSize());
+        assertEquals("linearId", request.getSortField());
+    }
+
+    @Test
+    public void keyIsTheSameForEveryWayOfAskingForAPage() {
+        String key = new PageRequest(2, 10, "linearId,asc").toKey();
+        assertEquals(key, new PageRequest(2, 10, "linearId").toKey());
+        assertEquals(key, new PageRequest(2, 10, " linearId , ASC ").toKey());
+        assertEquals(key, PageRequest.of(new PageRequest(2, 10, "linearId").toCursor(), null, null, null).toKey());
+
+        assertNotEquals(key, new PageRequest(3, 10, "linearId").toKey());
+        assertNotEquals(key, new PageRequest(2, 20, "linearId").toKey());
+        assertNotEquals(key, new PageRequest(2, 10, "linearId,desc").toKey());
+        assertNotEquals(key, new PageRequest(2, 10, "amount").toKey());
+    }
+
+    @Test
+    public void rejectsBadCursors() {
+        assertRejected("Invalid cursor.", () -> PageRequest.of("not a cursor!", null, null, null));
+        assertRejected("Invalid cursor.", () -> PageRequest.of(encode("1|10"), null, null, null));
+        assertRejected("Invalid cursor.", () -> PageRequest.of(encode("one|10|recordedTime"), null, null, null));
+        assertRejected("Invalid cursor.", () -> PageRequest.of(encode("0|10|recordedTime"), null, null, null));
+        assertRejected("Invalid cursor.", () -> PageRequest.of(encode("1|" + (PageRequest.MAX_PAGE_SIZE + 1) + "|recordedTime"), null, null, null));
+        assertRejected("Invalid cursor.", () -> PageRequest.of(encode("1|10|recordedTime,sideways"), null, null, null));
+    }
+
+    @Test
+    public void enforcesBounds() {
+        assertRejected("page must be at least " + DEFAULT_PAGE_NUM + ".", () -> new PageRequest(DEFAULT_PAGE_NUM - 1, 10, null));
+        assertRejected("pageSize must be between 1 and " + PageRequest.MAX_PAGE_SIZE + ".", () -> new PageRequest(1, 0, null));
+        assertRejected("pageSize must be between 1 and " + PageRequest.MAX_PAGE_SIZE + ".", () -> new PageRequest(1, PageRequest.MAX_PAGE_SIZE + 1, null));
+        assertEquals(PageRequest.MAX_PAGE_SIZE, new PageRequest(1, PageRequest.MAX_PAGE_SIZE, null).getPageSize());
+    }
+
+    @Test
+    public void hasNextUntilThePageReachesTheTotal() {
+        PageRequest second = new PageRequest(2, 10, null);
+        assertTrue(second.hasNext(21));
+        assertFalse(second.hasNext(20));
+        assertFalse(second.hasNext(0));
+    }
+
+    @Test
+    public void parsesSortExpressions() {
+        PageRequest spaced = new PageRequest(null, null, " recordedTime , DESC ");
+        assertEquals("recordedTime", spaced.getSortField());
+        assertTrue(spaced.isDescending());
+        assertEquals(Sort.Direction.DESC, columns(spaced.toSort(null)).get(0).getDirection());
+
+        PageRequest ascending = new PageRequest(null, null, "amount,asc");
+        assertEquals("amount", ascending.getSortField());
+        assertFalse(ascending.isDescending());
+
+        assertFalse(new PageRequest(null, null, "amount").isDescending());
+        assertRejected("Sort direction must be asc or desc.", () -> new PageRequest(null, null, "amount,foo"));
+    }
+
+    @Test
+    public void toSortBreaksTiesOnTheStateRef() {
+        List<Sort.SortColumn> columns = columns(new PageRequest(null, null, "amount,desc").toSort(IOUSchemaV1.PersistentIOU.class));
+        assertEquals(3, columns.size());
+        assertEquals(Sort.Direction.DESC, columns.get(0).getDirection());
+        assertEquals(Sort.Direction.ASC, columns.get(1).getDirection());
+        assertEquals(Sort.Direction.ASC, columns.get(2).getDirection());
+    }
+
+    @Test
+    public void toSortRejectsUnknownFields() {
+        assertRejected("Unsupported sort field amount.", () -> new PageRequest(null, null, "amount").toSort(null));
+        assertRejected("Unsupported sort field colour.", () -> new PageRequest(null, null, "colour").toSort(IOUSchemaV1.PersistentIOU.class));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Sort.SortColumn> columns(Sort sort) {
+        return new ArrayList<>(sort.getColumns());
+    }
+
+    private static void assertRejected(String message, Runnable request) {
+        try {
+            request.run();
+            fail("Expected the request to be rejected with: " + message);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
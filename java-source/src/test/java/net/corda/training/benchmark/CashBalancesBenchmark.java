@@ -0,0 +1,119 @@
+package net.corda.training.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.utilities.OpaqueBytes;
+import net.corda.finance.Currencies;
+import net.corda.finance.flows.CashIssueFlow;
+import net.corda.finance.workflows.GetBalances;
+import net.corda.testing.driver.DriverParameters;
+import net.corda.testing.driver.NodeHandle;
+import net.corda.testing.driver.NodeParameters;
+import net.corda.testing.node.TestCordapp;
+import net.corda.testing.node.User;
+import net.corda.training.api.CashBalanceCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.corda.testing.driver.Driver.driver;
+
+/**
+ * Measures the request-rate ceiling of the /cash-balances lookup, first by running the aggregate vault query over RPC
+ * on every request (as [GetBalances.getCashBalances] does) and then by reading the [CashBalanceCache], both idle and
+ * while cash is being issued so that updates are applied alongside the reads.
+ *
+ * Run from the IDE or with: java net.corda.training.benchmark.CashBalancesBenchmark [cashStates] [threads] [seconds]
+ */
+public class CashBalancesBenchmark {
+
+    public static void main(String[] args) {
+        final int cashStates = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        final User user = new User("user1", "test", ImmutableSet.of("ALL"));
+        driver(new DriverParameters()
+                .withStartNodesInProcess(true)
+                .withCordappsForAllNodes(Arrays.asList(TestCordapp.findCordapp("net.corda.finance"),
+                        TestCordapp.findCordapp("net.corda.training"))), dsl -> {
+            try {
+                NodeHandle node = dsl.startNode(new NodeParameters()
+                        .withProvidedName(new CordaX500Name("ParticipantA", "London", "GB"))
+                        .withRpcUsers(Collections.singletonList(user))).get();
+                CordaRPCOps rpc = node.getRpc();
+                Party notary = dsl.getNotaryHandles().get(0).getIdentity();
+
+                for (int i = 0; i < cashStates; i++) {
+                    rpc.startFlowDynamic(CashIssueFlow.class, i % 2 == 0 ? Currencies.POUNDS(10) : Currencies.DOLLARS(10),
+                            OpaqueBytes.of((byte) 1), notary).getReturnValue().get();
+                }
+
+                double uncached = requestsPerSecond(threads, seconds, () -> GetBalances.getCashBalances(rpc));
+
+                CashBalanceCache cache = new CashBalanceCache(rpc);
+                cache.start();
+                while (!cache.isReady()) Thread.sleep(50);
+                double cached = requestsPerSecond(threads, seconds, cache::getBalances);
+
+                // The same reads while cash is issued back to back, so updates are applied to the counters as they
+                // are read.
+                AtomicBoolean churning = new AtomicBoolean(true);
+                AtomicLong issued = new AtomicLong();
+                Thread churn = new Thread(() -> {
+                    while (churning.get()) {
+                        try {
+                            rpc.startFlowDynamic(CashIssueFlow.class, Currencies.POUNDS(1), OpaqueBytes.of((byte) 1), notary)
+                                    .getReturnValue().get();
+                            issued.incrementAndGet();
+                        } catch (Exception e) {
+                            return;
+                        }
+                    }
+                }, "cash-churn");
+                churn.start();
+                double churned = requestsPerSecond(threads, seconds, cache::getBalances);
+                churning.set(false);
+                churn.join();
+                cache.close();
+
+                System.out.println(String.format("Cash states:             %d", cashStates));
+                System.out.println(String.format("Vault aggregate per hit: %.0f req/s", uncached));
+                System.out.println(String.format("CashBalanceCache:        %.0f req/s (%.0fx)", cached, cached / uncached));
+                System.out.println(String.format("Cache under churn:       %.0f req/s, %.1f issuances/s applied", churned, issued.get() / (double) seconds));
+            } catch (Exception e) {
+                System.err.println("Benchmark failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Hammers [request] from [threads] threads for [seconds] and returns the completed requests per second.
+     */
+    private static double requestsPerSecond(int threads, int seconds, Runnable request) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    request.run();
+                    completed.incrementAndGet();
+                }
+            }));
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+        return completed.get() / (double) seconds;
+    }
+}
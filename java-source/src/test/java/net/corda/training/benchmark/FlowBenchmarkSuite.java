@@ -0,0 +1,197 @@
+package net.corda.training.benchmark;
+
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.NotaryFlow;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.node.StatesToRecord;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.finance.Currencies;
+import net.corda.testing.node.*;
+import net.corda.training.flow.IOUIssueFlow;
+import net.corda.training.flow.IOUSettleFlow;
+import net.corda.training.flow.IOUTransferFlow;
+import net.corda.training.flow.SelfIssueCashFlow;
+import net.corda.training.state.IOUState;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Flows per second for IOU issue, transfer and settle on one warmed [MockNetwork], and where each flow's time goes.
+ *
+ * Every flow type is first run [warmUp] times so class loading, JIT and the nodes' caches are out of the way, then
+ * [flows] more times, [concurrency] at a time, for the flows/sec figure. The nodes are shared by all three flow types:
+ * A lends to B, A transfers the IOUs to C, then B settles them with C.
+ *
+ * The stage split then replays the stages of the measured flows on the transactions they produced:
+ * - sign: each required signer's node signs the transaction.
+ * - check signatures: the initiator checks every required signature is present and valid.
+ * - verify contracts: the initiator resolves the transaction and runs every contract over it.
+ * - notarise: the initiator asks the notary again; notarisation is idempotent, so the notary redoes its
+ *   uniqueness check and signs without a conflict.
+ * - record: an observer node with no part in the IOUs records the transaction and all its states. The transactions
+ *   whose outputs it consumes, such as the cash issuances a settlement spends, are recorded on the observer first and
+ *   untimed, so its vault does the same work as a participant recording the transaction for the first time.
+ * Messaging and flow checkpointing are not in the split. They make up the rest of a flow's time, which can be
+ * estimated from the flows/sec figure.
+ *
+ * Run from the IDE or with: java net.corda.training.benchmark.FlowBenchmarkSuite [flows] [warmUp] [concurrency]
+ */
+public class FlowBenchmarkSuite {
+    private static final String[] STAGES = {"sign", "check signatures", "verify contracts", "notarise", "record"};
+
+    public static void main(String[] args) throws Exception {
+        final int flows = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final int warmUp = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        MockNetwork mockNetwork = new MockNetwork(new MockNetworkParameters()
+                .withThreadPerNode(true)
+                .withCordappsForAllNodes(Arrays.asList(
+                        TestCordapp.findCordapp("net.corda.training"),
+                        TestCordapp.findCordapp("net.corda.finance.schemas")))
+                .withNotarySpecs(Arrays.asList(new MockNetworkNotarySpec(new CordaX500Name("Notary", "London", "GB")))));
+        try {
+            StartedMockNode a = mockNetwork.createNode(new MockNodeParameters());
+            StartedMockNode b = mockNetwork.createNode(new MockNodeParameters());
+            StartedMockNode c = mockNetwork.createNode(new MockNodeParameters());
+            StartedMockNode observer = mockNetwork.createNode(new MockNodeParameters());
+            Party partyA = a.getInfo().getLegalIdentities().get(0);
+            Party partyB = b.getInfo().getLegalIdentities().get(0);
+            Party partyC = c.getInfo().getLegalIdentities().get(0);
+            int total = warmUp + flows;
+
+            Run issue = run(a, total, warmUp, concurrency,
+                    i -> new IOUIssueFlow.InitiatorFlow(new IOUState(Currencies.POUNDS(10), partyA, partyB)));
+            List<UniqueIdentifier> ious = new ArrayList<>();
+            for (SignedTransaction stx : issue.transactions) {
+                ious.add(((IOUState) stx.getTx().getOutputs().get(0).getData()).getLinearId());
+            }
+            Run transfer = run(a, total, warmUp, concurrency,
+                    i -> new IOUTransferFlow.InitiatorFlow(ious.get(i), partyC));
+            // One coin per IOU, so concurrent settlements never wait on each other's coin selection.
+            for (int i = 0; i < total; i++) {
+                b.startFlow(new SelfIssueCashFlow(Currencies.POUNDS(10))).get();
+            }
+            Run settle = run(b, total, warmUp, concurrency,
+                    i -> new IOUSettleFlow.InitiatorFlow(ious.get(i), Currencies.POUNDS(10)));
+
+            System.out.println(String.format("%-10s %10s", "Flow", "flows/s"));
+            System.out.println(String.format("%-10s %10.1f", "issue", issue.flowsPerSecond));
+            System.out.println(String.format("%-10s %10.1f", "transfer", transfer.flowsPerSecond));
+            System.out.println(String.format("%-10s %10.1f", "settle", settle.flowsPerSecond));
+            System.out.println();
+
+            System.out.println(String.format("%-10s %-18s %12s %8s", "Flow", "Stage", "mean us", "share"));
+            printStages("issue", stages(a, Arrays.asList(a, b), observer, issue.measured()));
+            printStages("transfer", stages(a, Arrays.asList(a, b, c), observer, transfer.measured()));
+            printStages("settle", stages(b, Arrays.asList(b, c), observer, settle.measured()));
+        } finally {
+            mockNetwork.stopNodes();
+        }
+    }
+
+    private static class Run {
+        final List<SignedTransaction> transactions;
+        final int warmUp;
+        final double flowsPerSecond;
+
+        Run(List<SignedTransaction> transactions, int warmUp, double flowsPerSecond) {
+            this.transactions = transactions;
+            this.warmUp = warmUp;
+            this.flowsPerSecond = flowsPerSecond;
+        }
+
+        List<SignedTransaction> measured() {
+            return transactions.subList(warmUp, transactions.size());
+        }
+    }
+
+    /**
+     * Runs [total] flows from [flow] on [node], keeping at most [concurrency] in flight, and times all but the first
+     * [warmUp]. Returns every flow's transaction, in the order the flows were started.
+     */
+    private static Run run(StartedMockNode node, int total, int warmUp, int concurrency,
+                           IntFunction<FlowLogic<SignedTransaction>> flow) throws Exception {
+        List<CordaFuture<SignedTransaction>> futures = new ArrayList<>();
+        long start = 0;
+        for (int i = 0; i < total; i++) {
+            if (i == warmUp) {
+                for (CordaFuture<SignedTransaction> future : futures) future.get();
+                start = System.nanoTime();
+            }
+            // Wait before starting: once flow i - concurrency has finished, flow i makes [concurrency] in flight.
+            if (i - concurrency >= 0) futures.get(i - concurrency).get();
+            futures.add(node.startFlow(flow.apply(i)));
+        }
+        List<SignedTransaction> transactions = new ArrayList<>();
+        for (CordaFuture<SignedTransaction> future : futures) transactions.add(future.get());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Run(transactions, warmUp, (total - warmUp) / seconds);
+    }
+
+    /**
+     * Mean nanoseconds spent in each of [STAGES] per transaction. The observer is given each transaction's
+     * dependencies before anything is timed.
+     */
+    private static long[] stages(StartedMockNode initiator, List<StartedMockNode> signers, StartedMockNode observer,
+                                 List<SignedTransaction> transactions) throws Exception {
+        for (SignedTransaction stx : transactions) {
+            for (StateRef input : stx.getTx().getInputs()) {
+                SignedTransaction dependency = initiator.transaction(() ->
+                        initiator.getServices().getValidatedTransactions().getTransaction(input.getTxhash()));
+                observer.transaction(() -> {
+                    if (observer.getServices().getValidatedTransactions().getTransaction(dependency.getId()) == null) {
+                        observer.getServices().recordTransactions(StatesToRecord.ALL_VISIBLE, Collections.singletonList(dependency));
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long[] nanos = new long[STAGES.length];
+        for (SignedTransaction stx : transactions) {
+            long start = System.nanoTime();
+            for (StartedMockNode signer : signers) {
+                signer.transaction(() -> signer.getServices().createSignature(stx));
+            }
+            nanos[0] += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            stx.verifyRequiredSignatures();
+            nanos[1] += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            initiator.transaction(() -> {
+                stx.toLedgerTransaction(initiator.getServices(), false).verify();
+                return null;
+            });
+            nanos[2] += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            initiator.startFlow(new NotaryFlow.Client(stx)).get();
+            nanos[3] += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            observer.transaction(() -> {
+                observer.getServices().recordTransactions(StatesToRecord.ALL_VISIBLE, Collections.singletonList(stx));
+                return null;
+            });
+            nanos[4] += System.nanoTime() - start;
+        }
+        for (int i = 0; i < nanos.length; i++) nanos[i] /= Math.max(1, transactions.size());
+        return nanos;
+    }
+
+    private static void printStages(String flow, long[] nanos) {
+        long total = Arrays.stream(nanos).sum();
+        for (int i = 0; i < STAGES.length; i++) {
+            System.out.println(String.format("%-10s %-18s %12.1f %7.1f%%", flow, STAGES[i], nanos[i] / 1e3,
+                    total == 0 ? 0 : 100.0 * nanos[i] / total));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package net.corda.training.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.collect.ImmutableSet;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.finance.Currencies;
+import net.corda.testing.driver.DriverParameters;
+import net.corda.testing.driver.NodeHandle;
+import net.corda.testing.driver.NodeParameters;
+import net.corda.testing.node.TestCordapp;
+import net.corda.testing.node.User;
+import net.corda.training.flow.IOUIssueFlow;
+import net.corda.training.flow.IOUSettleFlow;
+import net.corda.training.flow.IOUTransferFlow;
+import net.corda.training.flow.SelfIssueCashFlow;
+import net.corda.training.state.IOUState;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static net.corda.testing.driver.Driver.driver;
+
+/**
+ * Load test of the IOU flows end to end: starts a notary and three nodes in process with the driver, then drives
+ * Issue, Transfer and Settle flows over RPC and reports each phase's throughput, latency percentiles and error rate.
+ * Everything runs on localhost, so one machine is enough.
+ *
+ * Each phase starts [flows] flows at a fixed [rate] per second, with at most [concurrency] in flight. Latency is measured
+ * from when a flow was due to start rather than when it actually started, so time spent queued behind the concurrency
+ * limit counts against the node instead of vanishing from the numbers.
+ * - Issue: ParticipantA lends to ParticipantB, one IOU per flow.
+ * - Transfer: ParticipantA transfers each of those IOUs to ParticipantC.
+ * - Settle: ParticipantB settles each IOU in full with ParticipantC, from cash issued to it before the phase.
+ *
+ * Results go to [outputDir]: "flow-load.json" with a summary of every phase, and an HdrHistogram percentile
+ * distribution per phase ("issue.hgrm" etc.) that can be plotted with HdrHistogram's plotter.
+ *
+ * Run from the IDE or with: java net.corda.training.benchmark.FlowLoadHarness [flows] [rate] [concurrency] [outputDir]
+ */
+public class FlowLoadHarness {
+    private static final long HIGHEST_TRACKABLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    public static void main(String[] args) {
+        final int flows = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        final double rate = args.length > 1 ? Double.parseDouble(args[1]) : 20;
+        final int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        final File outputDir = new File(args.length > 3 ? args[3] : "build/reports/flow-load");
+
+        final User user = new User("user1", "test", ImmutableSet.of("ALL"));
+        driver(new DriverParameters()
+                .withStartNodesInProcess(true)
+                .withCordappsForAllNodes(Arrays.asList(TestCordapp.findCordapp("net.corda.finance"),
+                        TestCordapp.findCordapp("net.corda.training"))), dsl -> {
+            try {
+                CordaFuture<NodeHandle> aFuture = dsl.startNode(new NodeParameters()
+                        .withProvidedName(new CordaX500Name("ParticipantA", "London", "GB"))
+                        .withRpcUsers(Collections.singletonList(user)));
+                CordaFuture<NodeHandle> bFuture = dsl.startNode(new NodeParameters()
+                        .withProvidedName(new CordaX500Name("ParticipantB", "New York", "US"))
+                        .withRpcUsers(Collections.singletonList(user)));
+                CordaFuture<NodeHandle> cFuture = dsl.startNode(new NodeParameters()
+                        .withProvidedName(new CordaX500Name("ParticipantC", "Paris", "FR"))
+                        .withRpcUsers(Collections.singletonList(user)));
+                CordaRPCOps a = aFuture.get().getRpc();
+                CordaRPCOps b = bFuture.get().getRpc();
+                Party partyA = aFuture.get().getNodeInfo().getLegalIdentities().get(0);
+                Party partyB = bFuture.get().getNodeInfo().getLegalIdentities().get(0);
+                Party partyC = cFuture.get().getNodeInfo().getLegalIdentities().get(0);
+
+                List<UniqueIdentifier> ious = Collections.synchronizedList(new ArrayList<>());
+                List<Phase> phases = new ArrayList<>();
+
+                phases.add(run("issue", flows, rate, concurrency,
+                        i -> a.startFlowDynamic(IOUIssueFlow.InitiatorFlow.class, new IOUState(Currencies.POUNDS(10), partyA, partyB)).getReturnValue(),
+                        stx -> ious.add(((IOUState) stx.getTx().getOutputs().get(0).getData()).getLinearId())));
+
+                List<UniqueIdentifier> issued = new ArrayList<>(ious);
+                phases.add(run("transfer", issued.size(), rate, concurrency,
+                        i -> a.startFlowDynamic(IOUTransferFlow.InitiatorFlow.class, issued.get(i), partyC).getReturnValue(),
+                        stx -> { }));
+
+                // One coin per IOU, so concurrent settlements never wait on each other's coin selection.
+                for (int i = 0; i < issued.size(); i++) {
+                    b.startFlowDynamic(SelfIssueCashFlow.class, Currencies.POUNDS(10)).getReturnValue().get();
+                }
+                phases.add(run("settle", issued.size(), rate, concurrency,
+                        i -> b.startFlowDynamic(IOUSettleFlow.InitiatorFlow.class, issued.get(i), Currencies.POUNDS(10)).getReturnValue(),
+                        stx -> { }));
+
+                report(outputDir, flows, rate, concurrency, phases);
+            } catch (Exception e) {
+                System.err.println("Load test failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * One phase's results. Latencies are recorded in milliseconds.
+     */
+    private static class Phase {
+        final String name;
+        final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MILLIS, 3);
+        final AtomicLong errors = new AtomicLong();
+        long elapsedNanos;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        Map<String, Object> toJson() {
+            long completed = latencies.getTotalCount();
+            long total = completed + errors.get();
+            double seconds = elapsedNanos / 1e9;
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("phase", name);
+            json.put("flows", total);
+            json.put("completed", completed);
+            json.put("errors", errors.get());
+            json.put("errorRate", total == 0 ? 0 : errors.get() / (double) total);
+            json.put("seconds", seconds);
+            json.put("throughputPerSecond", completed / seconds);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", latencies.getValueAtPercentile(50));
+            latency.put("p95", latencies.getValueAtPercentile(95));
+            latency.put("p99", latencies.getValueAtPercentile(99));
+            latency.put("max", latencies.getMaxValue());
+            latency.put("mean", latencies.getMean());
+            json.put("latencyMillis", latency);
+            return json;
+        }
+    }
+
+    /**
+     * Starts [flows] flows from [start] at [rate] per second, never more than [concurrency] at once, and waits for them
+     * all to finish. [onSuccess] sees each flow's result before the phase counts it as finished.
+     */
+    private static <T> Phase run(String name, int flows, double rate, int concurrency,
+                                 IntFunction<CordaFuture<T>> start, Consumer<T> onSuccess) throws InterruptedException {
+        Phase phase = new Phase(name);
+        Semaphore inFlight = new Semaphore(concurrency);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long begin = System.nanoTime();
+        for (int i = 0; i < flows; i++) {
+            long due = begin + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            inFlight.acquire();
+            CordaFuture<T> future;
+            try {
+                future = start.apply(i);
+            } catch (RuntimeException e) {
+                phase.errors.incrementAndGet();
+                inFlight.release();
+                continue;
+            }
+            future.then(done -> {
+                try {
+                    onSuccess.accept(done.get());
+                    phase.latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - due), HIGHEST_TRACKABLE_MILLIS));
+                } catch (Exception e) {
+                    phase.errors.incrementAndGet();
+                } finally {
+                    inFlight.release();
+                }
+                return null;
+            });
+        }
+        inFlight.acquire(concurrency);
+        phase.elapsedNanos = System.nanoTime() - begin;
+        inFlight.release(concurrency);
+        System.out.println(String.format("%-8s %6d flows  %7.1f flows/s  p50 %5d ms  p95 %5d ms  p99 %5d ms  errors %d",
+                name, phase.latencies.getTotalCount(), phase.latencies.getTotalCount() / (phase.elapsedNanos / 1e9),
+                phase.latencies.getValueAtPercentile(50), phase.latencies.getValueAtPercentile(95),
+                phase.latencies.getValueAtPercentile(99), phase.errors.get()));
+        return phase;
+    }
+
+    private static void report(File outputDir, int flows, double rate, int concurrency, List<Phase> phases) throws Exception {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("Could not create " + outputDir);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("flowsPerPhase", flows);
+        json.put("targetRatePerSecond", rate);
+        json.put("concurrency", concurrency);
+        List<Object> results = new ArrayList<>();
+        for (Phase phase : phases) {
+            results.add(phase.toJson());
+            try (PrintStream out = new PrintStream(new FileOutputStream(new File(outputDir, phase.name + ".hgrm")))) {
+                phase.latencies.outputPercentileDistribution(out, 1.0);
+            }
+        }
+        json.put("phases", results);
+        File summary = new File(outputDir, "flow-load.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(summary, json);
+        System.out.println("Results written to " + outputDir.getAbsolutePath());
+    }
+}
@@ -0,0 +1,77 @@
+package net.corda.training.benchmark;
+
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.finance.Currencies;
+import net.corda.testing.node.*;
+import net.corda.training.flow.IOUIssueFlow;
+import net.corda.training.state.IOUState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares IOUs issued per second when every IOU gets its own transaction against issuing them in batches through
+ * [IOUIssueFlow.InitiatorFlow]'s list constructor. Flows are started [concurrency] at a time on a thread-per-node
+ * [MockNetwork], so the numbers include signature collection, notarisation and vault recording.
+ *
+ * Run from the IDE or with: java net.corda.training.benchmark.IOUIssueBenchmark [ious] [batchSize] [concurrency]
+ */
+public class IOUIssueBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int ious = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        final int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        MockNetwork mockNetwork = new MockNetwork(new MockNetworkParameters()
+                .withThreadPerNode(true)
+                .withCordappsForAllNodes(Arrays.asList(
+                        TestCordapp.findCordapp("net.corda.training"),
+                        TestCordapp.findCordapp("net.corda.finance.schemas")))
+                .withNotarySpecs(Arrays.asList(new MockNetworkNotarySpec(new CordaX500Name("Notary", "London", "GB")))));
+        try {
+            StartedMockNode a = mockNetwork.createNode(new MockNodeParameters());
+            StartedMockNode b = mockNetwork.createNode(new MockNodeParameters());
+            Party lender = a.getInfo().getLegalIdentities().get(0);
+            Party borrower = b.getInfo().getLegalIdentities().get(0);
+
+            // Warm up both paths so class loading and JIT do not count against either.
+            issue(a, lender, borrower, concurrency, 1, concurrency);
+            issue(a, lender, borrower, concurrency * batchSize, batchSize, concurrency);
+
+            double single = issue(a, lender, borrower, ious, 1, concurrency);
+            double batched = issue(a, lender, borrower, ious, batchSize, concurrency);
+
+            System.out.println(String.format("IOUs issued per run:     %d", ious));
+            System.out.println(String.format("Single IOU per tx:       %.1f IOUs/s", single));
+            System.out.println(String.format("%4d IOUs per tx:         %.1f IOUs/s", batchSize, batched));
+        } finally {
+            mockNetwork.stopNodes();
+        }
+    }
+
+    /**
+     * Issues [ious] IOUs in transactions of [batchSize], keeping at most [concurrency] flows in flight, and returns the
+     * number of IOUs issued per second.
+     */
+    private static double issue(StartedMockNode node, Party lender, Party borrower, int ious, int batchSize, int concurrency) throws Exception {
+        long start = System.nanoTime();
+        List<CordaFuture<SignedTransaction>> inFlight = new ArrayList<>();
+        for (int issued = 0; issued < ious; issued += batchSize) {
+            List<IOUState> batch = new ArrayList<>();
+            for (int i = 0; i < Math.min(batchSize, ious - issued); i++) {
+                batch.add(new IOUState(Currencies.POUNDS(10), lender, borrower));
+            }
+            inFlight.add(node.startFlow(new IOUIssueFlow.InitiatorFlow(batch)));
+            if (inFlight.size() >= concurrency) {
+                inFlight.remove(0).get();
+            }
+        }
+        for (CordaFuture<SignedTransaction> future : inFlight) future.get();
+        return ious / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,149 @@
+package net.corda.training.benchmark;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.VaultService;
+import net.corda.core.node.services.vault.*;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.finance.Currencies;
+import net.corda.testing.node.*;
+import net.corda.training.contract.IOUContract;
+import net.corda.training.schema.IOUSchemaV1;
+import net.corda.training.state.IOUState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.getField;
+
+/**
+ * Compares the latency of finding the IOUs owed to us by one borrower, in one currency, using the generic
+ * [VaultService.queryBy] path (page through every [IOUState] and filter in Java) against a [VaultCustomQueryCriteria]
+ * over the indexed [IOUSchemaV1] table.
+ *
+ * Run from the IDE or with: java net.corda.training.benchmark.IOUVaultQueryBenchmark [states] [iterations]
+ */
+public class IOUVaultQueryBenchmark {
+
+    private static final int PAGE_SIZE = 200;
+
+    public static void main(String[] args) throws Exception {
+        final int states = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        MockNetwork mockNetwork = new MockNetwork(new MockNetworkParameters()
+                .withCordappsForAllNodes(Arrays.asList(
+                        TestCordapp.findCordapp("net.corda.training"),
+                        TestCordapp.findCordapp("net.corda.finance.schemas")))
+                .withNotarySpecs(Arrays.asList(new MockNetworkNotarySpec(new CordaX500Name("Notary", "London", "GB")))));
+        try {
+            StartedMockNode a = mockNetwork.createNode(new MockNodeParameters());
+            StartedMockNode b = mockNetwork.createNode(new MockNodeParameters());
+            StartedMockNode c = mockNetwork.createNode(new MockNodeParameters());
+            mockNetwork.runNetwork();
+
+            Party lender = a.getInfo().getLegalIdentities().get(0);
+            Party borrower = b.getInfo().getLegalIdentities().get(0);
+            Party otherBorrower = c.getInfo().getLegalIdentities().get(0);
+
+            seedVault(mockNetwork, a, lender, borrower, otherBorrower, states);
+
+            VaultService vault = a.getServices().getVaultService();
+            long generic = time(a, iterations, () -> genericQuery(vault, borrower).size());
+            long custom = time(a, iterations, () -> customQuery(vault, borrower).size());
+
+            System.out.println(String.format("IOUs in vault:            %d", states));
+            System.out.println(String.format("Matching IOUs:            %d", a.transaction(() -> customQuery(vault, borrower).size())));
+            System.out.println(String.format("Generic queryBy + filter: %.3f ms/query", generic / 1e6));
+            System.out.println(String.format("IOUSchemaV1 criteria:     %.3f ms/query", custom / 1e6));
+        } finally {
+            mockNetwork.stopNodes();
+        }
+    }
+
+    /**
+     * Records [count] single-output IOU issuances directly into the lender's vault. Half are owed by [borrower] in GBP,
+     * the rest are split between [otherBorrower] and USD so that the filter is selective.
+     */
+    private static void seedVault(MockNetwork mockNetwork, StartedMockNode node, Party lender, Party borrower,
+                                  Party otherBorrower, int count) {
+        Party notary = mockNetwork.getDefaultNotaryIdentity();
+        node.transaction(() -> {
+            for (int i = 0; i < count; i++) {
+                IOUState iou = new IOUState(
+                        i % 4 == 3 ? Currencies.DOLLARS(1 + i % 100) : Currencies.POUNDS(1 + i % 100),
+                        lender,
+                        i % 2 == 0 ? borrower : otherBorrower);
+                TransactionBuilder builder = new TransactionBuilder(notary)
+                        .addOutputState(iou, IOUContract.IOU_CONTRACT_ID)
+                        .addCommand(new IOUContract.Commands.Issue(), lender.getOwningKey(), iou.getBorrower().getOwningKey());
+                SignedTransaction stx = node.getServices().signInitialTransaction(builder);
+                node.getServices().recordTransactions(Collections.singletonList(stx));
+            }
+            return null;
+        });
+    }
+
+    private static List<StateAndRef<IOUState>> genericQuery(VaultService vault, Party borrower) {
+        List<StateAndRef<IOUState>> result = new ArrayList<>();
+        int pageNumber = DEFAULT_PAGE_NUM;
+        long seen = 0;
+        Vault.Page<IOUState> page;
+        do {
+            page = vault.queryBy(IOUState.class, new QueryCriteria.VaultQueryCriteria(), new PageSpecification(pageNumber++, PAGE_SIZE));
+            seen += page.getStates().size();
+            result.addAll(page.getStates().stream()
+                    .filter(it -> it.getState().getData().getBorrower().equals(borrower)
+                            && it.getState().getData().getAmount().getToken().equals(Currencies.POUNDS(0).getToken()))
+                    .collect(Collectors.toList()));
+        } while (seen < page.getTotalStatesAvailable());
+        return result;
+    }
+
+    private static List<StateAndRef<IOUState>> customQuery(VaultService vault, Party borrower) {
+        QueryCriteria criteria;
+        try {
+            criteria = new QueryCriteria.VaultCustomQueryCriteria(
+                    Builder.equal(getField("borrower", IOUSchemaV1.PersistentIOU.class), borrower.getName().toString()))
+                    .and(new QueryCriteria.VaultCustomQueryCriteria(
+                            Builder.equal(getField("currency", IOUSchemaV1.PersistentIOU.class), "GBP")));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+        List<StateAndRef<IOUState>> result = new ArrayList<>();
+        int pageNumber = DEFAULT_PAGE_NUM;
+        Vault.Page<IOUState> page;
+        do {
+            page = vault.queryBy(IOUState.class, criteria, new PageSpecification(pageNumber++, PAGE_SIZE));
+            result.addAll(page.getStates());
+        } while (result.size() < page.getTotalStatesAvailable());
+        return result;
+    }
+
+    private interface Query {
+        int run() throws Exception;
+    }
+
+    /**
+     * Returns the mean wall clock time of [query] in nanoseconds, after discarding a warm up round.
+     */
+    private static long time(StartedMockNode node, int iterations, Query query) {
+        return node.transaction(() -> {
+            try {
+                for (int i = 0; i < Math.max(1, iterations / 4); i++) query.run();
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) query.run();
+                return (System.nanoTime() - start) / iterations;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package net.corda.training.compression;
+
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.finance.Currencies;
+import net.corda.testing.core.TestIdentity;
+import net.corda.training.state.IOUState;
+import org.junit.Test;
+
+import java.util.*;
+
+import static net.corda.training.TestUtils.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DebtGraphTests {
+
+    @Test
+    public void cancelsACycleCompletely() {
+        DebtGraph graph = DebtGraph.of(Currencies.POUNDS(0).getToken(), Arrays.asList(
+                new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty()),
+                new IOUState(Currencies.POUNDS(10), BOB.getParty(), CHARLIE.getParty()),
+                new IOUState(Currencies.POUNDS(10), CHARLIE.getParty(), ALICE.getParty())));
+
+        assertEquals(3000, graph.getTotalOutstanding());
+        assertTrue(graph.compress().isEmpty());
+    }
+
+    @Test
+    public void cancelsOnlyAlongCycles() {
+        DebtGraph graph = DebtGraph.of(Currencies.POUNDS(0).getToken(), Arrays.asList(
+                new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty()),
+                new IOUState(Currencies.POUNDS(10), BOB.getParty(), CHARLIE.getParty()),
+                new IOUState(Currencies.POUNDS(4), CHARLIE.getParty(), ALICE.getParty()),
+                new IOUState(Currencies.POUNDS(5), MEGACORP.getParty(), CHARLIE.getParty()).pay(Currencies.POUNDS(2))));
+
+        // The Alice -> Bob -> Charlie cycle cancels by 4; Charlie's debt to Megacorp is on no cycle and is kept.
+        assertEquals(Arrays.asList(
+                new DebtGraph.Obligation(ALICE.getParty(), BOB.getParty(), 600),
+                new DebtGraph.Obligation(BOB.getParty(), CHARLIE.getParty(), 600),
+                new DebtGraph.Obligation(MEGACORP.getParty(), CHARLIE.getParty(), 300)), graph.compress());
+        assertEquals(Long.valueOf(0), graph.getNetPositions().get(BOB.getParty()));
+    }
+
+    @Test
+    public void doesNotNovateAChain() {
+        DebtGraph graph = DebtGraph.of(Currencies.POUNDS(0).getToken(), Arrays.asList(
+                new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty()),
+                new IOUState(Currencies.POUNDS(10), BOB.getParty(), CHARLIE.getParty())));
+
+        // Charlie owes Bob and Bob owes Alice; Charlie never owed Alice, so no debt between them is created.
+        assertEquals(Arrays.asList(
+                new DebtGraph.Obligation(ALICE.getParty(), BOB.getParty(), 1000),
+                new DebtGraph.Obligation(BOB.getParty(), CHARLIE.getParty(), 1000)), graph.compress());
+    }
+
+    @Test
+    public void netsDebtsBothWaysBetweenTwoParties() {
+        DebtGraph graph = DebtGraph.of(Currencies.POUNDS(0).getToken(), Arrays.asList(
+                new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty()),
+                new IOUState(Currencies.POUNDS(3), BOB.getParty(), ALICE.getParty())));
+
+        assertEquals(Arrays.asList(new DebtGraph.Obligation(ALICE.getParty(), BOB.getParty(), 700)), graph.compress());
+    }
+
+    @Test(timeout = 10_000)
+    public void cancelsEveryCycleOfALargeGraphInOnePass() {
+        // A ring long enough to overflow a recursive search, with shortcuts that make many overlapping cycles.
+        int size = 5_000;
+        List<Party> parties = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            parties.add(new TestIdentity(new CordaX500Name("Party" + i, "London", "GB")).getParty());
+        }
+        List<IOUState> ious = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ious.add(new IOUState(Currencies.POUNDS(10), parties.get((i + 1) % size), parties.get(i)));
+            ious.add(new IOUState(Currencies.POUNDS(1 + i % 7), parties.get((i * 31 + 17) % size), parties.get(i)));
+        }
+        DebtGraph graph = DebtGraph.of(Currencies.POUNDS(0).getToken(), ious);
+
+        List<DebtGraph.Obligation> obligations = graph.compress();
+
+        Map<Party, Long> netPositions = new HashMap<>();
+        Map<Party, Set<Party>> lendersOf = new HashMap<>();
+        for (DebtGraph.Obligation obligation : obligations) {
+            netPositions.merge(obligation.getLender(), obligation.getQuantity(), Long::sum);
+            netPositions.merge(obligation.getBorrower(), -obligation.getQuantity(), Long::sum);
+            lendersOf.computeIfAbsent(obligation.getBorrower(), key -> new HashSet<>()).add(obligation.getLender());
+        }
+        graph.getNetPositions().forEach((party, net) -> assertEquals(net, netPositions.getOrDefault(party, 0L)));
+        assertTrue(isAcyclic(parties, lendersOf));
+    }
+
+    /**
+     * Whether every party can be ordered before everyone it owes, i.e. no cycle of debt is left.
+     */
+    private static boolean isAcyclic(List<Party> parties, Map<Party, Set<Party>> lendersOf) {
+        Map<Party, Integer> borrowersOf = new HashMap<>();
+        lendersOf.values().forEach(lenders -> lenders.forEach(lender -> borrowersOf.merge(lender, 1, Integer::sum)));
+        Deque<Party> free = new ArrayDeque<>();
+        parties.stream().filter(party -> !borrowersOf.containsKey(party)).forEach(free::add);
+        int ordered = 0;
+        while (!free.isEmpty()) {
+            Party party = free.poll();
+            ordered++;
+            for (Party lender : lendersOf.getOrDefault(party, Collections.emptySet())) {
+                if (borrowersOf.merge(lender, -1, Integer::sum) == 0) free.add(lender);
+            }
+        }
+        return ordered == parties.size();
+    }
+}
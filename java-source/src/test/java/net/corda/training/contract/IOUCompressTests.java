@@ -0,0 +1,95 @@
+package net.corda.training.contract;
+
+import net.corda.finance.Currencies;
+import net.corda.testing.node.MockServices;
+import net.corda.training.state.IOUState;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static net.corda.testing.node.NodeTestUtils.ledger;
+import static net.corda.training.TestUtils.*;
+
+/**
+ * Contract tests for compressing [IOUState]s between many parties with the [IOUContract.Commands.Compress] command.
+ */
+public class IOUCompressTests {
+
+    static private final MockServices ledgerServices = new MockServices(
+            Arrays.asList("net.corda.training", "net.corda.finance.contracts")
+    );
+
+    private final IOUState aliceLendsBob = new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty());
+    private final IOUState bobLendsCharlie = new IOUState(Currencies.POUNDS(10), BOB.getParty(), CHARLIE.getParty());
+    private final IOUState charlieLendsAlice = new IOUState(Currencies.POUNDS(4), CHARLIE.getParty(), ALICE.getParty());
+
+    @Test
+    public void compressesACycleIntoItsResidual() {
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsCharlie);
+                tx.input(IOUContract.IOU_CONTRACT_ID, charlieLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), BOB.getParty()));
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), BOB.getParty(), CHARLIE.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey(), CHARLIE.getPublicKey()), new IOUContract.Commands.Compress());
+                return tx.verifies();
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsCharlie);
+                tx.input(IOUContract.IOU_CONTRACT_ID, charlieLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey(), CHARLIE.getPublicKey()), new IOUContract.Commands.Compress());
+                return tx.failsWith("Every party's net position must be unchanged.");
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsCharlie);
+                tx.input(IOUContract.IOU_CONTRACT_ID, charlieLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), BOB.getParty()));
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), BOB.getParty(), CHARLIE.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), CHARLIE.getPublicKey()), new IOUContract.Commands.Compress());
+                return tx.failsWith("Every party to the compressed IOUs must sign.");
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void mustNotCreateNewCounterparties() {
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsCharlie);
+                tx.input(IOUContract.IOU_CONTRACT_ID, charlieLendsAlice);
+                // The same net positions, but Charlie never owed Alice anything.
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), CHARLIE.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey(), CHARLIE.getPublicKey()), new IOUContract.Commands.Compress());
+                return tx.failsWith("A compressed IOU may only reduce a debt the borrower already owed the lender.");
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void mustReduceTheTotalOutstanding() {
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsCharlie);
+                tx.output(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.output(IOUContract.IOU_CONTRACT_ID, bobLendsCharlie);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey(), CHARLIE.getPublicKey()), new IOUContract.Commands.Compress());
+                return tx.failsWith("Compression must reduce the total outstanding.");
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.DOLLARS(10), BOB.getParty(), ALICE.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Compress());
+                return tx.failsWith("All compressed IOUs must be in the same currency.");
+            });
+            return null;
+        });
+    }
+}
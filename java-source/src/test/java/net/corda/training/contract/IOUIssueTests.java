@@ -120,20 +120,26 @@ public class IOUIssueTests {
 
     /**
      * Task 3.
-     * Now we need to ensure that only one {@link IOUState} is issued per transaction.
-     * TODO: Write a contract constraint that ensures only one output state is created in a transaction.
+     * Now we need to ensure that at least one {@link IOUState} is issued per transaction. Several IOUs may be issued
+     * together under a single Issue command, as long as every output is an {@link IOUState}.
+     * TODO: Write a contract constraint that ensures at least one IOU output state is created in a transaction.
      * Hint: Write an additional constraint within the existing [requireThat] block which you created in the previous
      * task.
      */
     @Test
-    public void issueTransactionMustHaveOneOutput() {
+    public void issueTransactionMustHaveAtLeastOneOutput() {
         IOUState iou = new IOUState(Currencies.POUNDS(1), ALICE.getParty(), BOB.getParty());
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
                 tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Issue());
-                tx.output(IOUContract.IOU_CONTRACT_ID, iou); // Two outputs fails.
+                tx.output(IOUContract.IOU_CONTRACT_ID, new DummyState()); // No IOU outputs fails.
+                return tx.failsWith("At least one output state should be created when issuing an IOU.");
+            });
+            l.transaction(tx -> {
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Issue());
                 tx.output(IOUContract.IOU_CONTRACT_ID, iou);
-                return tx.failsWith("Only one output state should be created when issuing an IOU.");
+                tx.output(IOUContract.IOU_CONTRACT_ID, new DummyState()); // Non IOU outputs fail.
+                return tx.failsWith("Only IOU output states should be created when issuing an IOU.");
             });
             l.transaction(tx -> {
                 tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Issue());
@@ -144,6 +150,44 @@ public class IOUIssueTests {
         });
     }
 
+    /**
+     * Several IOUs can be issued in one transaction under a single Issue command. Every IOU must be valid on its own and
+     * all of their participants must sign.
+     */
+    @Test
+    public void batchIssueMustBeSignedByAllParticipants() {
+        IOUState iouOne = new IOUState(Currencies.POUNDS(1), ALICE.getParty(), BOB.getParty());
+        IOUState iouTwo = new IOUState(Currencies.POUNDS(2), ALICE.getParty(), BOB.getParty());
+        IOUState iouThree = new IOUState(Currencies.DOLLARS(3), ALICE.getParty(), CHARLIE.getParty());
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Issue());
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouOne);
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouTwo);
+                return tx.verifies();
+            });
+            l.transaction(tx -> {
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Issue());
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouOne);
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouThree);
+                return tx.failsWith("Both lender and borrower together only may sign IOU issue transaction.");
+            });
+            l.transaction(tx -> {
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey(), CHARLIE.getPublicKey()), new IOUContract.Commands.Issue());
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouOne);
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouThree);
+                return tx.verifies();
+            });
+            l.transaction(tx -> {
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Issue());
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouOne);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(0), ALICE.getParty(), BOB.getParty()));
+                return tx.failsWith("A newly issued IOU must have a positive amount.");
+            });
+            return null;
+        });
+    }
+
     /**
      * Task 4.
      * Now we need to consider the properties of the {@link IOUState}. We need to ensure that an IOU should always have a
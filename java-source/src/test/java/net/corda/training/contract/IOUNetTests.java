@@ -0,0 +1,129 @@
+package net.corda.training.contract;
+
+import net.corda.finance.Currencies;
+import net.corda.testing.node.MockServices;
+import net.corda.training.state.IOUState;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static net.corda.testing.node.NodeTestUtils.ledger;
+import static net.corda.training.TestUtils.*;
+
+/**
+ * Contract tests for netting offsetting [IOUState]s between two parties with the [IOUContract.Commands.Net] command.
+ */
+public class IOUNetTests {
+
+    static private final MockServices ledgerServices = new MockServices(
+            Arrays.asList("net.corda.training", "net.corda.finance.contracts")
+    );
+
+    @Test
+    public void netsOffsettingIOUsIntoOneResidual() {
+        IOUState aliceLendsBob = new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty());
+        IOUState bobLendsAlice = new IOUState(Currencies.POUNDS(4), BOB.getParty(), ALICE.getParty());
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.verifies();
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), BOB.getParty(), ALICE.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.failsWith("The residual IOU must be owed by the net debtor to the net creditor.");
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(5), ALICE.getParty(), BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.failsWith("The residual IOU must be for the net amount.");
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsAlice);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.failsWith("There must be a residual IOU for the net amount.");
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void leavesNothingWhenIOUsCancelOut() {
+        IOUState aliceLendsBob = new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty());
+        IOUState bobLendsAlice = new IOUState(Currencies.POUNDS(15), BOB.getParty(), ALICE.getParty()).pay(Currencies.POUNDS(5));
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsAlice);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.verifies();
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(1), ALICE.getParty(), BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.failsWith("There must be no residual IOU when the IOUs cancel out.");
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void onlyOffsettingIOUsBetweenTwoPartiesInOneCurrencyMayBeNetted() {
+        IOUState aliceLendsBob = new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty());
+        IOUState aliceLendsBobAgain = new IOUState(Currencies.POUNDS(3), ALICE.getParty(), BOB.getParty());
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBobAgain);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(13), ALICE.getParty(), BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.failsWith("There must be IOUs in both directions to net.");
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.DOLLARS(4), BOB.getParty(), ALICE.getParty()));
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.failsWith("All netted IOUs must be in the same currency.");
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(4), CHARLIE.getParty(), ALICE.getParty()));
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey(), CHARLIE.getPublicKey()), new IOUContract.Commands.Net());
+                return tx.failsWith("All netted IOUs must be between the same two parties.");
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void bothPartiesMustSignNetTransaction() {
+        IOUState aliceLendsBob = new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty());
+        IOUState bobLendsAlice = new IOUState(Currencies.POUNDS(4), BOB.getParty(), ALICE.getParty());
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, aliceLendsBob);
+                tx.input(IOUContract.IOU_CONTRACT_ID, bobLendsAlice);
+                tx.output(IOUContract.IOU_CONTRACT_ID, new IOUState(Currencies.POUNDS(6), ALICE.getParty(), BOB.getParty()));
+                tx.command(ALICE.getPublicKey(), new IOUContract.Commands.Net());
+                return tx.failsWith("Both parties must sign an IOU net transaction.");
+            });
+            return null;
+        });
+    }
+}
@@ -90,10 +90,9 @@ public class IOUSettleTests {
 
     /**
      * Task 2.
-     * For now, we only want to settle one IOU at once. We can use the [TransactionForContract.groupStates] function
-     * to group the IOUs by their [linearId] property. We want to make sure there is only one group of input and output
-     * IOUs.
-     * TODO: Using [groupStates] add a constraint that checks for one group of input/output IOUs.
+     * Several IOUs can be settled in one transaction. We can use the [TransactionForContract.groupStates] function
+     * to group the IOUs by their [linearId] property and check each group of input and output IOUs on its own. The cash
+     * paid to the lender must cover every IOU being settled.
      * Hint:
      * - The [groupStates] method on a Transaction takes two type parameters: the type of the state you wish to group by and the type
      *   of the grouping key used (indicated by a method reference), in this case as you need to use the [linearId] and it is a [UniqueIdentifier].
@@ -102,14 +101,16 @@ public class IOUSettleTests {
      *
      */
     @Test
-    public void mustBeOneGroupOfIOUs() {
+    public void mayHaveManyGroupsOfIOUs() {
         IOUState iouONE = new IOUState(Currencies.POUNDS(10), ALICE.getParty(), BOB.getParty());
         IOUState iouTWO = new IOUState(Currencies.POUNDS(5), ALICE.getParty(), BOB.getParty());
         Cash.State inputCash = createCashState(BOB.getParty(), Currencies.POUNDS(5));
         CommandAndState outputCash = inputCash.withNewOwner(ALICE.getParty());
+        Cash.State tenPounds = createCashState(BOB.getParty(), Currencies.POUNDS(10));
 
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
+                // iouTWO has no output so it is fully settled, but only enough cash for iouONE is paid.
                 tx.input(IOUContract.IOU_CONTRACT_ID, iouONE);
                 tx.input(IOUContract.IOU_CONTRACT_ID, iouTWO);
                 tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Settle());
@@ -117,7 +118,18 @@ public class IOUSettleTests {
                 tx.input(Cash.class.getName(), inputCash);
                 tx.output(Cash.class.getName(), outputCash.getOwnableState());
                 tx.command(BOB.getPublicKey(), new Cash.Commands.Move());
-                tx.failsWith("List has more than one element.");
+                tx.failsWith("The cash paid to each lender must equal the amount settled.");
+                return null;
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, iouONE);
+                tx.input(IOUContract.IOU_CONTRACT_ID, iouTWO);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Settle());
+                tx.output(IOUContract.IOU_CONTRACT_ID, iouONE.pay(Currencies.POUNDS(5)));
+                tx.input(Cash.class.getName(), tenPounds);
+                tx.output(Cash.class.getName(), tenPounds.withNewOwner(ALICE.getParty()).getOwnableState());
+                tx.command(BOB.getPublicKey(), new Cash.Commands.Move());
+                tx.verifies();
                 return null;
             });
             l.transaction(tx -> {
@@ -134,6 +146,51 @@ public class IOUSettleTests {
         });
     }
 
+    /**
+     * A borrower may pay with many small cash states, in any order among the outputs, as long as they add up to the
+     * amount settled for each lender.
+     */
+    @Test
+    public void mayPayWithManySmallCashStates() {
+        IOUState iou = new IOUState(Currencies.POUNDS(500), ALICE.getParty(), BOB.getParty());
+        Cash.State onePound = createCashState(BOB.getParty(), Currencies.POUNDS(1));
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, iou);
+                for (int i = 0; i < 500; i++) {
+                    tx.input(Cash.class.getName(), onePound);
+                    tx.output(Cash.class.getName(), onePound.withNewOwner(ALICE.getParty()).getOwnableState());
+                }
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Settle());
+                tx.command(BOB.getPublicKey(), new Cash.Commands.Move());
+                return tx.verifies();
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, iou);
+                for (int i = 0; i < 499; i++) {
+                    tx.input(Cash.class.getName(), onePound);
+                    tx.output(Cash.class.getName(), onePound.withNewOwner(ALICE.getParty()).getOwnableState());
+                }
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Settle());
+                tx.command(BOB.getPublicKey(), new Cash.Commands.Move());
+                return tx.failsWith("The cash paid to each lender must equal the amount settled.");
+            });
+            l.transaction(tx -> {
+                tx.input(IOUContract.IOU_CONTRACT_ID, iou);
+                for (int i = 0; i < 250; i++) {
+                    tx.input(Cash.class.getName(), onePound);
+                    tx.output(Cash.class.getName(), onePound.withNewOwner(ALICE.getParty()).getOwnableState());
+                }
+                tx.output(IOUContract.IOU_CONTRACT_ID, iou.pay(Currencies.POUNDS(250)));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new IOUContract.Commands.Settle());
+                tx.command(BOB.getPublicKey(), new Cash.Commands.Move());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
     /**
      * Task 3.
      * There always has to be one input IOU in a settle transaction but there might not be an output IOU.
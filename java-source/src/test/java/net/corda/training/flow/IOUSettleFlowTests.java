@@ -5,6 +5,8 @@ import net.corda.core.contracts.Amount;
 import net.corda.core.contracts.Command;
 import net.corda.core.contracts.CommandAndState;
 import net.corda.core.contracts.CommandWithParties;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.UniqueIdentifier;
 import net.corda.core.flows.FlowSession;
 import net.corda.core.identity.CordaX500Name;
 import net.corda.core.identity.Party;
@@ -16,6 +18,7 @@ import net.corda.finance.contracts.asset.Cash;
 import net.corda.testing.node.*;
 import net.corda.training.contract.IOUContract;
 import net.corda.training.contract.IOUIssueTests;
+import net.corda.training.service.IOUIndexService;
 import net.corda.training.state.IOUState;
 import org.junit.After;
 import org.junit.Before;
@@ -27,7 +30,9 @@ import javax.annotation.Signed;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Currency;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
@@ -36,6 +41,7 @@ import static net.corda.testing.driver.Driver.driver;
 import static net.corda.testing.node.NodeTestUtils.ledger;
 import static net.corda.training.TestUtils.ALICE;
 import static net.corda.training.TestUtils.BOB;
+import static org.junit.Assert.*;
 
 /**
  * Practical exercise instructions Flows part 3.
@@ -56,7 +62,6 @@ public class IOUSettleFlowTests{
                 )
         ).withNotarySpecs(Arrays.asList(new MockNetworkNotarySpec(new CordaX500Name("Notary", "London", "GB"))));
         mockNetwork = new MockNetwork(mockNetworkParameters);
-        System.out.println(mockNetwork);
 
         a = mockNetwork.createNode(new MockNodeParameters());
         b = mockNetwork.createNode(new MockNodeParameters());
@@ -109,63 +114,53 @@ public class IOUSettleFlowTests{
      * - Add the input [IOUState] [StateAndRef] and the new output [IOUState] to the transaction.
      * - Sign the transaction and return it.
      */
-//    @Test
-//    public void flowReturnsCorrectlyFormedPartiallySignedTransaction() throws Exception {
-//        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
-//        issueCash(Currencies.POUNDS(5));
-//        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
-//        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
-//        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
-//
-//        mockNetwork.runNetwork();
-//
-//        SignedTransaction settleResult = futureSettleResult.get();
-//        // Check the transaction is well formed...
-//        // One output IOUState, one input IOUState reference, input and output cash
-//        a.transaction(() -> {
-//            try {
-//                LedgerTransaction ledgerTx = settleResult.toLedgerTransaction(a.getServices(), false);
-//                assert(ledgerTx.getInputs().size() == 2);
-//                assert(ledgerTx.getOutputs().size() == 2);
-//
-//                IOUState outputIOU = ledgerTx.outputsOfType(IOUState.class).get(0);
-//                IOUState correctOutputIOU = inputIOU.pay(Currencies.POUNDS(5));
-//
-//                assert (outputIOU.amount.equals(correctOutputIOU.amount));
-//                assert (outputIOU.paid.equals(correctOutputIOU.paid));
-//                assert (outputIOU.lender.equals(correctOutputIOU.lender));
-//                assert (outputIOU.borrower.equals(correctOutputIOU.borrower));
-//
-//                // Sum all the output cash. This is complicated as there may be multiple cash output states with not all of them
-//                // being assigned to the lender.
-//                List<Cash.State> outputCash = ledgerTx.getOutputs().stream()
-//                        .map(state -> (Cash.State) state.getData())
-//                        .filter(state -> state.getOwner().getOwningKey().equals(b.getInfo().getLegalIdentities().get(0).getOwningKey()))
-//                        .collect(Collectors.toList());
-//
-//                // Sum the acceptable cash sent to the lender
-//                Amount<Currency> outputCashSum = new Amount<>(0, inputIOU.amount.getToken());
-//                for (Cash.State cash: outputCash) {
-//                    Amount<Currency> addCash = new Amount<>(cash.getAmount().getQuantity(), cash.getAmount().getToken().getProduct());
-//                    outputCashSum = outputCashSum.plus(addCash);
-//                }
-//
-//                assert (outputCashSum.equals(inputIOU.amount.minus(inputIOU.paid).minus(outputIOU.paid)));
-//
-//                CommandWithParties command = ledgerTx.getCommands().get(0);
-//                assert (command.getValue().equals(new IOUContract.Commands.Settle()));
-//
-//                settleResult.verifySignaturesExcept(b.getInfo().getLegalIdentities().get(0).getOwningKey(),
-//                        mockNetwork.getDefaultNotaryIdentity().getOwningKey());
-//
-//                return null;
-//            } catch (Exception exception) {
-//                System.out.println(exception);
-//            }
-//            return null;
-//        });
-//
-//    }
+    @Test
+    public void flowReturnsCorrectlyFormedPartiallySignedTransaction() throws Exception {
+        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
+        issueCash(Currencies.POUNDS(5));
+        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
+        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
+        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
+
+        mockNetwork.runNetwork();
+
+        SignedTransaction settleResult = futureSettleResult.get();
+        // Check the transaction is well formed...
+        // One output IOUState, one input IOUState reference, input and output cash
+        assertEquals(2, settleResult.getTx().getInputs().size());
+        assertEquals(2, settleResult.getTx().getOutputs().size());
+
+        IOUState outputIOU = settleResult.getTx().outputsOfType(IOUState.class).get(0);
+        IOUState correctOutputIOU = inputIOU.pay(Currencies.POUNDS(5));
+
+        assertEquals(correctOutputIOU.getAmount(), outputIOU.getAmount());
+        assertEquals(correctOutputIOU.getPaid(), outputIOU.getPaid());
+        assertEquals(correctOutputIOU.getLender(), outputIOU.getLender());
+        assertEquals(correctOutputIOU.getBorrower(), outputIOU.getBorrower());
+
+        // Sum all the output cash. This is complicated as there may be multiple cash output states with not all of them
+        // being assigned to the lender.
+        List<Cash.State> outputCash = settleResult.getTx().outputsOfType(Cash.State.class).stream()
+                .filter(state -> state.getOwner().getOwningKey().equals(b.getInfo().getLegalIdentities().get(0).getOwningKey()))
+                .collect(Collectors.toList());
+
+        // Sum the acceptable cash sent to the lender
+        Amount<Currency> outputCashSum = new Amount<>(0, (Currency) inputIOU.getAmount().getToken());
+        for (Cash.State cash: outputCash) {
+            Amount<Currency> addCash = new Amount<>(cash.getAmount().getQuantity(), cash.getAmount().getToken().getProduct());
+            outputCashSum = outputCashSum.plus(addCash);
+        }
+
+        assertEquals(outputIOU.getPaid().minus(inputIOU.getPaid()), outputCashSum);
+
+        // The cash move command comes first, so look for the settle command among them.
+        assertTrue(settleResult.getTx().getCommands().stream()
+                .map(Command::getValue)
+                .anyMatch(value -> value.equals(new IOUContract.Commands.Settle())));
+
+        settleResult.verifySignaturesExcept(b.getInfo().getLegalIdentities().get(0).getOwningKey(),
+                mockNetwork.getDefaultNotaryIdentity().getOwningKey());
+    }
 
     /**
      * Task 2.
@@ -173,21 +168,23 @@ public class IOUSettleFlowTests{
      * TODO: Grab the IOU for the given [linearId] from the vault and check the node running the flow is the borrower.
      * Hint: Use the data within the iou obtained from the vault to check the right node is running the flow.
      */
-//    @Test
-//    public void settleFlowCanOnlyBeRunByBorrower() throws Exception {
-//        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
-//        issueCash(Currencies.POUNDS(5));
-//        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
-//        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
-//        Future<SignedTransaction> futureSettleResult = b.startFlow(flow);
-//
-//        try {
-//            mockNetwork.runNetwork();
-//            futureSettleResult.get();
-//        } catch (Exception exception) {
-//            assert exception.getMessage().equals("java.lang.IllegalArgumentException: The borrower must issue the flow");
-//        }
-//    }
+    @Test
+    public void settleFlowCanOnlyBeRunByBorrower() throws Exception {
+        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
+        issueCash(Currencies.POUNDS(5));
+        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
+        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
+        Future<SignedTransaction> futureSettleResult = b.startFlow(flow);
+
+        mockNetwork.runNetwork();
+        try {
+            futureSettleResult.get();
+            fail("Only the borrower may settle the IOU.");
+        } catch (ExecutionException exception) {
+            assertTrue(exception.getCause() instanceof IllegalArgumentException);
+            assertEquals("Settle IOU flow must be initiated by the borrower.", exception.getCause().getMessage());
+        }
+    }
 
     /**
      * Task 3.
@@ -197,21 +194,23 @@ public class IOUSettleFlowTests{
      * - Use [getCashBalance(getServiceHub(), (Currency) amount.getToken())].
      * - Use an if statement to check there is cash in the right currency present.
      */
-//    @Test
-//    public void borrowerMustHaveCashInRightCurrency() throws Exception {
-//        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
-//        issueCash(Currencies.POUNDS(5));
-//        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
-//        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
-//        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
-//
-//        try {
-//            mockNetwork.runNetwork();
-//            futureSettleResult.get();
-//        } catch (Exception exception) {
-//            assert exception.getMessage().equals("java.lang.IllegalArgumentException: Borrower has no GBP to settle.");
-//        }
-//    }
+    @Test
+    public void borrowerMustHaveCashInRightCurrency() throws Exception {
+        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
+        issueCash(Currencies.DOLLARS(5));
+        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
+        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
+        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
+
+        mockNetwork.runNetwork();
+        try {
+            futureSettleResult.get();
+            fail("The borrower has no GBP to settle with.");
+        } catch (ExecutionException exception) {
+            assertTrue(exception.getCause() instanceof IllegalArgumentException);
+            assertEquals("Borrower has no GBP to settle.", exception.getCause().getMessage());
+        }
+    }
 
     /**
      * Task 4.
@@ -219,41 +218,40 @@ public class IOUSettleFlowTests{
      * TODO: Add a check in the flow to ensure that the borrower has enough cash to pay the lender.
      * Hint: Add another if statement similar to the one required above.
      */
-//    @Test
-//    public void borrowerMustHaveEnoughCashInRightCurrency() throws Exception {
-//        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
-//        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
-//        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
-//        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
-//
-//        try {
-//            mockNetwork.runNetwork();
-//            futureSettleResult.get();
-//        } catch (Exception exception) {
-//            assert exception.getMessage().equals("java.lang.IllegalArgumentException: Borrower doesn't have enough cash to settle with the amount specified.");
-//        }
-//    }
+    @Test
+    public void borrowerMustHaveEnoughCashInRightCurrency() throws Exception {
+        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
+        issueCash(Currencies.POUNDS(1));
+        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
+        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
+        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
+
+        mockNetwork.runNetwork();
+        try {
+            futureSettleResult.get();
+            fail("The borrower has too little GBP to settle with.");
+        } catch (ExecutionException exception) {
+            assertTrue(exception.getCause() instanceof IllegalArgumentException);
+            assertEquals("Borrower doesn't have enough cash to settle with the amount specified.", exception.getCause().getMessage());
+        }
+    }
 
     /**
      * Task 5.
      * We need to get the transaction signed by the other party.
      * TODO: Use a subFlow call to [initateFlow] and the [SignTransactionFlow] to get a signature from the lender.
      */
-//    @Test
-//    public void flowReturnsTransactionSignedByBothParties() throws Exception {
-//        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
-//        issueCash(Currencies.POUNDS(5));
-//        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
-//        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
-//        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
-//
-//        try {
-//            mockNetwork.runNetwork();
-//            futureSettleResult.get().verifySignaturesExcept(mockNetwork.getDefaultNotaryIdentity().getOwningKey());
-//        } catch (Exception exception) {
-//            assert exception.getMessage().equals("java.lang.IllegalArgumentException: Borrower has no GBP to settle.");
-//        }
-//    }
+    @Test
+    public void flowReturnsTransactionSignedByBothParties() throws Exception {
+        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
+        issueCash(Currencies.POUNDS(5));
+        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
+        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
+        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
+
+        mockNetwork.runNetwork();
+        futureSettleResult.get().verifySignaturesExcept(mockNetwork.getDefaultNotaryIdentity().getOwningKey());
+    }
 
     /**
      * Task 6.
@@ -261,20 +259,82 @@ public class IOUSettleFlowTests{
      * TODO: Use a subFlow call to the [FinalityFlow] to get a signature from the lender.
      */
 
-//    @Test
-//    public void flowReturnsCommittedTransaction() throws Exception {
-//        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
-//        issueCash(Currencies.POUNDS(5));
-//        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
-//        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
-//        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
-//
-//        try {
-//            mockNetwork.runNetwork();
-//            futureSettleResult.get().verifyRequiredSignatures();
-//        } catch (Exception exception) {
-//            assert exception.getMessage().equals("java.lang.IllegalArgumentException: Borrower has no GBP to settle.");
-//        }
-//    }
-
-}
\ No newline at end of file
+    @Test
+    public void flowReturnsCommittedTransaction() throws Exception {
+        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
+        issueCash(Currencies.POUNDS(5));
+        IOUState inputIOU = stx.getTx().outputsOfType(IOUState.class).get(0);
+        IOUSettleFlow.InitiatorFlow flow = new IOUSettleFlow.InitiatorFlow(inputIOU.getLinearId(), Currencies.POUNDS(5));
+        Future<SignedTransaction> futureSettleResult = a.startFlow(flow);
+
+        mockNetwork.runNetwork();
+        futureSettleResult.get().verifyRequiredSignatures();
+    }
+
+    /**
+     * Settling a list of IOUs pays every lender in one transaction, with one coin selection per currency.
+     */
+    @Test
+    public void settlesSeveralIOUsInOneTransaction() throws Exception {
+        Party borrower = a.getInfo().getLegalIdentities().get(0);
+        Party lenderB = b.getInfo().getLegalIdentities().get(0);
+        Party lenderC = c.getInfo().getLegalIdentities().get(0);
+        List<UniqueIdentifier> linearIds = new ArrayList<>();
+        for (IOUState iou : Arrays.asList(
+                new IOUState(Currencies.POUNDS(10), lenderB, borrower),
+                new IOUState(Currencies.POUNDS(5), lenderC, borrower),
+                new IOUState(Currencies.DOLLARS(3), lenderB, borrower))) {
+            linearIds.add(issueIOU(iou).getTx().outputsOfType(IOUState.class).get(0).getLinearId());
+        }
+        issueCash(Currencies.POUNDS(15));
+        issueCash(Currencies.DOLLARS(3));
+
+        Future<SignedTransaction> future = a.startFlow(new IOUSettleFlow.InitiatorFlow(linearIds));
+        mockNetwork.runNetwork();
+        SignedTransaction stx = future.get();
+
+        stx.verifyRequiredSignatures();
+        // Every IOU is settled in full, so none are left as outputs.
+        assertTrue(stx.getTx().outputsOfType(IOUState.class).isEmpty());
+        Map<Party, Map<Currency, Long>> paid = new HashMap<>();
+        for (Cash.State cash : stx.getTx().outputsOfType(Cash.State.class)) {
+            Party owner = a.getServices().getIdentityService().wellKnownPartyFromAnonymous(cash.getOwner());
+            paid.computeIfAbsent(owner, key -> new HashMap<>())
+                    .merge(cash.getAmount().getToken().getProduct(), cash.getAmount().getQuantity(), Long::sum);
+        }
+        assertEquals(Long.valueOf(1000), paid.get(lenderB).get(Currencies.POUNDS(0).getToken()));
+        assertEquals(Long.valueOf(300), paid.get(lenderB).get(Currencies.DOLLARS(0).getToken()));
+        assertEquals(Long.valueOf(500), paid.get(lenderC).get(Currencies.POUNDS(0).getToken()));
+
+        for (StartedMockNode node : Arrays.asList(a, b, c)) {
+            assertNotNull(node.getServices().getValidatedTransactions().getTransaction(stx.getId()));
+        }
+        a.transaction(() -> {
+            assertTrue(a.getServices().getVaultService().queryBy(IOUState.class).getStates().isEmpty());
+            return null;
+        });
+    }
+
+    /**
+     * A partial settlement consumes the ref the borrower's [IOUIndexService] held, so settling the rest must find the
+     * IOU that settlement produced.
+     */
+    @Test
+    public void indexResolvesTheCurrentStateAfterItsRefIsConsumed() throws Exception {
+        SignedTransaction stx = issueIOU(new IOUState(Currencies.POUNDS(10), b.getInfo().getLegalIdentities().get(0), a.getInfo().getLegalIdentities().get(0)));
+        issueCash(Currencies.POUNDS(10));
+        UniqueIdentifier linearId = stx.getTx().outputsOfType(IOUState.class).get(0).getLinearId();
+
+        Future<SignedTransaction> firstResult = a.startFlow(new IOUSettleFlow.InitiatorFlow(linearId, Currencies.POUNDS(4)));
+        mockNetwork.runNetwork();
+        SignedTransaction first = firstResult.get();
+        StateRef remaining = first.getTx().outRefsOfType(IOUState.class).get(0).getRef();
+        assertEquals(remaining, a.transaction(() -> a.getServices().cordaService(IOUIndexService.class).resolve(linearId).getRef()));
+
+        Future<SignedTransaction> secondResult = a.startFlow(new IOUSettleFlow.InitiatorFlow(linearId, Currencies.POUNDS(6)));
+        mockNetwork.runNetwork();
+        SignedTransaction second = secondResult.get();
+        assertTrue(second.getTx().getInputs().contains(remaining));
+        assertTrue(second.getTx().outputsOfType(IOUState.class).isEmpty());
+    }
+}
@@ -5,7 +5,9 @@ import net.corda.core.contracts.ContractState;
 import net.corda.core.contracts.LinearState;
 import net.corda.core.contracts.UniqueIdentifier;
 import net.corda.core.identity.Party;
+import net.corda.core.schemas.QueryableState;
 import net.corda.finance.Currencies;
+import net.corda.training.schema.IOUSchemaV1;
 import org.junit.Test;
 
 import java.lang.reflect.Constructor;
@@ -218,4 +220,22 @@ public class IOUStateTests {
             fail("The correct private copy constructor does not exist!");
         }
     }
+
+    /**
+     * The [IOUState] is mapped to the indexed [IOUSchemaV1] table so the vault can filter IOUs in the database.
+     */
+    @Test
+    public void mapsToIOUSchemaV1() {
+        IOUState iou = new IOUState(Currencies.DOLLARS(10), ALICE.getParty(), BOB.getParty()).pay(Currencies.DOLLARS(4));
+        assertTrue(iou instanceof QueryableState);
+
+        IOUSchemaV1.PersistentIOU persistentIOU = (IOUSchemaV1.PersistentIOU) iou.generateMappedObject(new IOUSchemaV1());
+        assertEquals(ALICE.getName().toString(), persistentIOU.getLender());
+        assertEquals(BOB.getName().toString(), persistentIOU.getBorrower());
+        assertEquals("USD", persistentIOU.getCurrency());
+        assertEquals(iou.getAmount().getQuantity(), persistentIOU.getAmount());
+        assertEquals(400L, persistentIOU.getPaid());
+        assertEquals(iou.getAmount().getQuantity() - 400L, persistentIOU.getOutstanding());
+        assertEquals(iou.getLinearId().getId(), persistentIOU.getLinearId());
+    }
 }